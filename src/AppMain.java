@@ -1,14 +1,106 @@
+import java.io.IOException;
+
+import app.BatchApp;
 import app.CliApp;
 import app.GuiApp;
+import app.ServerApp;
 
 public final class AppMain {
 	public static void main(String[] args) {
+		if (args.length != 0 && args[0].equals("--server")) {
+			// Start the headless server, optionally on the given port
+			runServer(args);
+
+			return;
+		}
+
+		// Only the console variant keeps a journal of the operations
+		final boolean journal = args.length == 1 && args[0].equals("--journal");
+
+		if (args.length != 0 && !journal) {
+			// Perform an operation script without asking anything
+			if (!runBatch(args)) {
+				System.exit(1);
+			}
+
+			return;
+		}
+
         if (CliApp.dialog("Do you want to use the graphical variant instead of the console one?")) {
             // Start the GUI app
 			GuiApp.run();
         } else {
 			// Fallback to CLI app
-			CliApp.run();
+			CliApp.run(journal);
 		}
 	}
+
+	/**
+	 * Starts the server variant of the application with the arguments {@code --server [port] [--journal]}.
+	 * @param args The arguments of the application.
+	 */
+	private static void runServer(String[] args) {
+		try {
+			int port = ServerApp.getDefaultPort();
+			boolean journal = false;
+
+			for (int z = 1; z < args.length; ++z) {
+				if (args[z].equals("--journal")) {
+					journal = true;
+				} else if (z == 1) {
+					port = Integer.parseInt(args[z]);
+				} else {
+					printUsage();
+
+					return;
+				}
+			}
+
+			ServerApp.run(port, journal);
+		} catch (NumberFormatException exception) {
+			System.err.println("Please enter valid port number!");
+		} catch (IOException exception) {
+			System.err.println("Cannot listen on the port!");
+		}
+	}
+
+	/**
+	 * Runs the batch variant of the application with the arguments {@code --file <file.txt> --ops <script>}, in any order.
+	 * The script is read from the standard input when it's path is {@code -}.
+	 * @param args The arguments of the application.
+	 * @return True when the script was performed and the content was written down. Otherwise, false.
+	 */
+	private static boolean runBatch(String[] args) {
+		String filePath = null, scriptPath = null;
+
+		for (int z = 0; z + 1 < args.length; z += 2) {
+			if (args[z].equals("--file")) {
+				filePath = args[z + 1];
+			} else if (args[z].equals("--ops")) {
+				scriptPath = args[z + 1];
+			} else {
+				filePath = null;
+
+				break;
+			}
+		}
+
+		if (filePath == null || scriptPath == null || args.length % 2 != 0) {
+			printUsage();
+
+			return false;
+		}
+
+		return BatchApp.run(filePath, scriptPath);
+	}
+
+	/**
+	 * Prints the arguments accepted by the application.
+	 * The {@code --journal} option keeps a journal of the operations next to each open file (see {@link app.core.SessionOption#JOURNAL}).
+	 */
+	private static void printUsage() {
+		System.err.println("Usage: AppMain [--journal]");
+		System.err.println("       AppMain --file <file.txt> --ops <script or - for standard input>");
+		System.err.println("       AppMain --server [port] [--journal]");
+	}
 }
@@ -0,0 +1,127 @@
+package app;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import app.core.AppCore;
+import app.core.Operation;
+
+/**
+ * Represents the batch variant of the application, which performs an operation script (see {@link OperationScript}) on a file without asking
+ * anything and without printing the content. The operations are performed as a whole (see {@link AppCore#applyBatch}), so either all of them
+ * are performed or none, and the content is written down once at the end. The time taken by each step is reported.
+ * This is a utility class, therefore uninstantiable (from outside) nor inheritable.
+ * To use this class see the {@code run} method.
+ */
+public final class BatchApp {
+	/**
+	 * Not meant to be instantiated.
+	 */
+	private BatchApp() {
+		super();
+	}
+
+	/**
+	 * This method is used to run the application in batch mode.
+	 * @param filePath Absolute or relative path to the plain text file (*.txt) on which the operations are performed.
+	 * @param scriptPath Absolute or relative path to the operation script, or {@code -} to read it from the standard input.
+	 * @return True when all operations were performed and the content was written down. Otherwise, false and the reason is printed.
+	 */
+	public static boolean run(String filePath, String scriptPath) {
+		File file = new File(filePath);
+
+		// The same checks as in the other variants of the application.
+		if (!file.getName().endsWith(".txt")) {
+			System.err.println("Selected a file that is not plain text (*.txt)!");
+
+			return false;
+		}
+
+		if (!file.canRead()) {
+			System.err.println("Cannot read the content of the file!");
+
+			return false;
+		}
+
+		if (!file.canWrite()) {
+			System.err.println("Cannot write content to the file!");
+
+			return false;
+		}
+
+		long start = System.nanoTime();
+
+		final List<Operation> operations;
+
+		try (BufferedReader reader = scriptPath.equals("-") ? new BufferedReader(new InputStreamReader(System.in)) : Files.newBufferedReader(Paths.get(scriptPath))) {
+			operations = OperationScript.parse(reader);
+		} catch (NoSuchFileException exception) {
+			System.err.println("Cannot open specified script!");
+
+			return false;
+		} catch (IOException exception) {
+			System.err.println("Cannot read the script!");
+
+			return false;
+		} catch (IllegalArgumentException exception) {
+			System.err.println(exception.getMessage());
+
+			return false;
+		}
+
+		start = report(String.format("Parsed %d operations", operations.size()), start);
+
+		try {
+			AppCore appCore = new AppCore(file.getAbsolutePath());
+
+			start = report(String.format("Loaded %d lines", appCore.lineCount()), start);
+
+			try {
+				appCore.applyBatch(operations);
+
+				start = report(String.format("Performed %d operations", operations.size()), start);
+			} finally {
+				// Written down even when the operations failed, in which case nothing was changed.
+				appCore.close();
+			}
+
+			report("Written down the content", start);
+
+			return true;
+		} catch (IndexOutOfBoundsException | NoSuchElementException exception) {
+			System.err.println("Cannot perform the operations, so none of them were performed: " + exception.getMessage());
+
+			return false;
+		} catch (FileNotFoundException exception) {
+			System.err.println("Cannot open specified file!");
+
+			return false;
+		} catch (IOException | SecurityException exception) {
+			System.err.println("Cannot load or write down the content of the file!");
+
+			return false;
+		}
+	}
+
+	/**
+	 * Prints the time taken by a step.
+	 * @param step A reference to a string describing the step.
+	 * @param start The time at which the step started, in nanoseconds (see {@link System#nanoTime}).
+	 * @return The time at which the step ended, which is when the next step starts.
+	 */
+	private static long report(String step, long start) {
+		final long end = System.nanoTime();
+
+		System.out.println(String.format("%s in %.1f ms.", step, (end - start) / 1e6));
+
+		return end;
+	}
+}
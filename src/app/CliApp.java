@@ -6,6 +6,7 @@ import java.io.IOException;
 import java.util.Scanner;
 
 import app.core.AppCore;
+import app.core.SessionOption;
 
 /**
  * Represents the Command Line Interface (CLI) variant of the application.
@@ -26,8 +27,10 @@ public final class CliApp {
 
     /**
      * This method is used to start the application in CLI mode.
+     * @param journal True when the operations should be recorded in a journal next to the file (see {@link SessionOption#JOURNAL}),
+     * so they are not lost when the application is stopped before writing down the content. Otherwise, false.
      */
-    public static void run() {
+    public static void run(boolean journal) {
         try {
             while (true) {
                 System.out.print("Please enter path to a plain text file (*.txt): ");
@@ -61,7 +64,9 @@ public final class CliApp {
                     continue;
                 }
 
-                try (AppCore appCore = new AppCore(filepath.getAbsolutePath())) {
+                final String path = filepath.getAbsolutePath();
+
+                try (AppCore appCore = journal ? new AppCore(path, SessionOption.JOURNAL, SessionOption.WARM_UP) : new AppCore(path, SessionOption.WARM_UP)) {
                     System.out.println();
 
                     boolean loop = true;
@@ -149,13 +154,18 @@ public final class CliApp {
      */
     private static void swapWords(AppCore appCore) {
         {
-            int totalWordCount = 0;
+            long totalWordCount = 0;
 
-            for (int z = 0; z < appCore.lineCount(); ++z) {
-                totalWordCount += appCore.wordCountOnLine(z, 2 - totalWordCount);
+            if (appCore.hasWordCounts()) {
+                totalWordCount = appCore.totalWordCount();
+            } else {
+                // Parse only as many words as needed, instead of counting the words of all lines.
+                for (int z = 0; z < appCore.lineCount(); ++z) {
+                    totalWordCount += appCore.wordCountOnLine(z, (int) (2 - totalWordCount));
 
-                if (totalWordCount > 1) {
-                    break;
+                    if (totalWordCount > 1) {
+                        break;
+                    }
                 }
             }
 
@@ -5,13 +5,14 @@ import java.awt.GridLayout;
 import java.awt.Container;
 import java.awt.HeadlessException;
 import java.awt.Panel;
-import java.io.FileNotFoundException;
+import java.beans.PropertyChangeEvent;
 import java.io.IOException;
 
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
@@ -32,8 +33,12 @@ public final class GuiApp extends JFrame {
 
 	private final JTextField filePath;
 	private final JTextArea content;
+	private final JPanel progressPanel;
+	private final JProgressBar progressBar;
+	private final JButton[] editButtons;
 
 	private AppCore appCore;
+	private GuiSessionLoader loader;
 
 	static {
 		serialVersionUID = 0;
@@ -64,6 +69,27 @@ public final class GuiApp extends JFrame {
 			addFilePathLabel(topPanel);
 			filePath = addFilePath(topPanel);
 			addChooseFile(topPanel);
+
+			// Shown only while a file is being loaded.
+			progressPanel = new JPanel(new BorderLayout());
+
+			progressBar = new JProgressBar(0, 100);
+
+			progressBar.setStringPainted(true);
+
+			progressPanel.add(progressBar, BorderLayout.CENTER);
+
+			{
+				JButton button = new JButton("Cancel");
+
+				button.addMouseListener(GuiHandlers.cancelLoadingHandler(this));
+
+				progressPanel.add(button, BorderLayout.EAST);
+			}
+
+			progressPanel.setVisible(false);
+
+			topPanel.add(progressPanel, BorderLayout.SOUTH);
 		}
 
 		// Center panel
@@ -81,9 +107,13 @@ public final class GuiApp extends JFrame {
 		{
 			JPanel bottomPanel = new JPanel(new GridLayout());
 
+			editButtons = new JButton[4];
+
 			{
 				JButton button = new JButton("Add Empty Line");
 
+				editButtons[0] = button;
+
 				button.addMouseListener(GuiHandlers.addEmptyLineHandler(this));
 
 				bottomPanel.add(button);
@@ -92,6 +122,8 @@ public final class GuiApp extends JFrame {
 			{
 				JButton button = new JButton("Remove Last Line");
 
+				editButtons[1] = button;
+
 				button.addMouseListener(GuiHandlers.removeLastLineHandler(this));
 
 				bottomPanel.add(button);
@@ -100,6 +132,8 @@ public final class GuiApp extends JFrame {
 			{
 				JButton button = new JButton("Swap Lines");
 
+				editButtons[2] = button;
+
 				button.addMouseListener(GuiHandlers.swapLinesHandler(this));
 
 				bottomPanel.add(button, BorderLayout.WEST);
@@ -108,6 +142,8 @@ public final class GuiApp extends JFrame {
 			{
 				JButton button = new JButton("Swap Words");
 
+				editButtons[3] = button;
+
 				button.addMouseListener(GuiHandlers.swapWordsHandler(this));
 
 				bottomPanel.add(button, BorderLayout.EAST);
@@ -116,6 +152,8 @@ public final class GuiApp extends JFrame {
 			add(bottomPanel, BorderLayout.SOUTH);
 		}
 
+		setEditingEnabled(false);
+
 		addWindowListener(GuiHandlers.defaultWindowListener(this));
 
 		setVisible(true);
@@ -144,32 +182,64 @@ public final class GuiApp extends JFrame {
 	}
 
 	/**
-	 * This method is used to close the previous session, if any, and open a new one by opening the file with the given path.
+	 * This method is used to append already formatted content to the window's control {@code content} while a file is being loaded.
+	 * @param loader The loader which is loading the file.
+	 * @param text A reference to a string containing the formatted content.
+	 */
+	void appendContent(GuiSessionLoader loader, String text) {
+		// Ignore loaders which were already cancelled or have finished.
+		if (this.loader != loader) {
+			return;
+		}
+
+		content.append(text);
+	}
+
+	/**
+	 * This method is used to enable or disable the buttons which perform operations on the current session.
+	 * @param enabled True when the buttons should be enabled. Otherwise, false.
+	 */
+	private void setEditingEnabled(boolean enabled) {
+		for (JButton button : editButtons) {
+			button.setEnabled(enabled);
+		}
+	}
+
+	/**
+	 * This method is used to close the previous session, if any, and start opening a new one by loading the file with the given path in the background.
+	 * The content is shown progressively while the operations stay disabled until the file is fully loaded.
 	 * @param path Absolute or relative path to the file which will be used for the new session.
 	 */
 	void newSession(String path) {
 		try {
+			cancelLoading();
+
 			if (appCore != null) {
 				appCore.close();
 
 				appCore = null;
 			}
 
-			filePath.setText(null);
+			setEditingEnabled(false);
 
 			refreshContent();
 
-			try {
-				appCore = new AppCore(path);
+			filePath.setText(path);
 
-				filePath.setText(path);
+			GuiSessionLoader loader = new GuiSessionLoader(this, path);
 
-				refreshContent();
-			} catch (FileNotFoundException exception) {
-				GuiErrors.errorFileNotFound(this);
-			} catch (IOException exception) {
-				GuiErrors.errorCannotRead(this);
-			}
+			this.loader = loader;
+
+			loader.addPropertyChangeListener((PropertyChangeEvent event) -> {
+				if (event.getPropertyName().equals("progress")) {
+					progressBar.setValue(((Integer) event.getNewValue()).intValue());
+				}
+			});
+
+			progressBar.setValue(0);
+			progressPanel.setVisible(true);
+
+			loader.execute();
 		} catch (IOException exception) {
 			GuiErrors.errorCannotWriteDown(this);
 		} catch (SecurityException exception) {
@@ -179,6 +249,67 @@ public final class GuiApp extends JFrame {
 		}
 	}
 
+	/**
+	 * This method is used to cancel the loading of a new session, if there is such, and clear what was shown of it.
+	 */
+	void cancelLoading() {
+		if (loader == null) {
+			return;
+		}
+
+		loader.cancel(true);
+
+		sessionCancelled(loader);
+	}
+
+	/**
+	 * This method is called by the loader when the new session is fully loaded.
+	 * @param loader The loader which loaded the session.
+	 * @param appCore A non-null reference to the new session.
+	 */
+	void sessionLoaded(GuiSessionLoader loader, AppCore appCore) {
+		// Close the sessions of loaders which were already cancelled, which has nothing to write down as nothing was changed.
+		if (this.loader != loader) {
+			try {
+				appCore.close();
+			} catch (IOException exception) {
+				GuiErrors.errorCannotWriteDown(this);
+			} catch (SecurityException exception) {
+				GuiErrors.errorSecurityViolation(this);
+
+				System.exit(101);
+			}
+
+			return;
+		}
+
+		this.loader = null;
+		this.appCore = appCore;
+
+		progressPanel.setVisible(false);
+
+		setEditingEnabled(true);
+	}
+
+	/**
+	 * This method is called when loading a new session is cancelled or has failed.
+	 * @param loader The loader which was loading the session.
+	 */
+	void sessionCancelled(GuiSessionLoader loader) {
+		// Ignore loaders which were already cancelled.
+		if (this.loader != loader) {
+			return;
+		}
+
+		this.loader = null;
+
+		progressPanel.setVisible(false);
+
+		filePath.setText(null);
+
+		refreshContent();
+	}
+
 	/**
 	 * This method is used to get a reference to the current session.
 	 * @return A reference to the currently open session or a null-reference, if there is no such.
@@ -33,6 +33,8 @@ final class GuiHandlers {
 
 			@Override
 			public void windowClosing(WindowEvent e) {
+				app.cancelLoading();
+
 				AppCore appCore = app.getSession();
 
 				if (appCore != null) {
@@ -88,7 +90,8 @@ final class GuiHandlers {
 
 			@Override
 			public void mouseReleased(MouseEvent e) {
-				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl) {
+				// Disabled buttons still receive mouse events.
+				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl || !e.getComponent().isEnabled()) {
 					return;
 				}
 
@@ -134,7 +137,8 @@ final class GuiHandlers {
 
 			@Override
 			public void mouseReleased(MouseEvent e) {
-				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl) {
+				// Disabled buttons still receive mouse events.
+				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl || !e.getComponent().isEnabled()) {
 					return;
 				}
 
@@ -192,7 +196,8 @@ final class GuiHandlers {
 
 			@Override
 			public void mouseReleased(MouseEvent e) {
-				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl) {
+				// Disabled buttons still receive mouse events.
+				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl || !e.getComponent().isEnabled()) {
 					return;
 				}
 
@@ -252,7 +257,8 @@ final class GuiHandlers {
 
 			@Override
 			public void mouseReleased(MouseEvent e) {
-				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl) {
+				// Disabled buttons still receive mouse events.
+				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl || !e.getComponent().isEnabled()) {
 					return;
 				}
 
@@ -265,13 +271,18 @@ final class GuiHandlers {
 				}
 
 				{
-					int totalWordCount = 0;
-
-					for (int z = 0; z < appCore.lineCount(); ++z) {
-						totalWordCount += appCore.wordCountOnLine(z, 2 - totalWordCount);
-
-						if (totalWordCount > 1) {
-							break;
+					long totalWordCount = 0;
+
+					if (appCore.hasWordCounts()) {
+						totalWordCount = appCore.totalWordCount();
+					} else {
+						// Parse only as many words as needed, instead of counting the words of all lines.
+						for (int z = 0; z < appCore.lineCount(); ++z) {
+							totalWordCount += appCore.wordCountOnLine(z, (int) (2 - totalWordCount));
+
+							if (totalWordCount > 1) {
+								break;
+							}
 						}
 					}
 
@@ -308,6 +319,42 @@ final class GuiHandlers {
 		};
 	}
 
+	/**
+	 * Creates a mouse event listener which handles cancelling the loading of a new file.
+	 * @param app An assumed to be non-null reference to the application
+	 * @return A non-null reference to the newly created event listener.
+	 */
+	static MouseListener cancelLoadingHandler(GuiApp app) {
+		return new MouseListener() {
+			private boolean withinControl = false;
+
+			@Override
+			public void mouseClicked(MouseEvent e) {}
+
+			@Override
+			public void mouseEntered(MouseEvent e) {
+				withinControl = true;
+			}
+
+			@Override
+			public void mouseExited(MouseEvent e) {
+				withinControl = false;
+			}
+
+			@Override
+			public void mouseReleased(MouseEvent e) {
+				if ((e.getButton() & MouseEvent.BUTTON1) != MouseEvent.BUTTON1 || !withinControl) {
+					return;
+				}
+
+				app.cancelLoading();
+			}
+
+			@Override
+			public void mousePressed(MouseEvent e) {}
+		};
+	}
+
 	/**
 	 * Creates a mouse event listener which handles opening a new file.
 	 * @param app An assumed to be non-null reference to the application
@@ -78,12 +78,8 @@ final class GuiLineInput {
 	private static Integer[] inputLineOptionsForWords(AppCore appCore) {
 		ArrayList<Integer> options = new ArrayList<Integer>();
 
-		int lineCount = appCore.lineCount();
-
-		for (int z = 0; z < lineCount; ++z) {
-			if (appCore.hasWordsOnLine(z)) {
-				options.add(Integer.valueOf(z + 1));
-			}
+		for (int z = appCore.nextLineWithWords(0); z != -1; z = appCore.nextLineWithWords(z + 1)) {
+			options.add(Integer.valueOf(z + 1));
 		}
 
 		return options.toArray(Integer[]::new);
@@ -98,10 +94,9 @@ final class GuiLineInput {
 	private static Integer[] inputLineOptionsForWordsExcluding(AppCore appCore, int line) {
 		ArrayList<Integer> options = new ArrayList<Integer>();
 
-		for (int z = 0; z < appCore.lineCount(); ++z) {
-			int tempResult = line == z ? 1 : 0;
-
-			if (appCore.wordCountOnLine(z, 1 + tempResult) > tempResult) {
+		for (int z = appCore.nextLineWithWords(0); z != -1; z = appCore.nextLineWithWords(z + 1)) {
+			// The given line is only an option when there is another word on it.
+			if (z != line || appCore.wordCountOnLine(z, 2) > 1) {
 				options.add(Integer.valueOf(z + 1));
 			}
 		}
@@ -0,0 +1,152 @@
+package app;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import javax.swing.SwingWorker;
+
+import app.core.AppCore;
+import app.core.SessionOption;
+import app.core.utils.Line;
+
+/**
+ * Represents the opening of a new session on a background thread.
+ * The content is published in batches of formatted lines as they are loaded, so the window can show it progressively.
+ * The session is handed over to the application only when it is fully loaded, after every batch is shown.
+ */
+final class GuiSessionLoader extends SwingWorker<AppCore, String> {
+	private final GuiApp app;
+	private final String path;
+
+	// Only used by the loading thread.
+	private int lineCount;
+
+	// Guarded by itself. Batches which are not shown yet, as the batches given to "process" may come even after "done".
+	private final ArrayList<String> pending;
+
+	/**
+	 * Creates new instance of the class which will load the file with the given path once executed.
+	 * @param app An assumed to be non-null reference to the application.
+	 * @param path Absolute or relative path to the file which will be used for the new session.
+	 */
+	GuiSessionLoader(GuiApp app, String path) {
+		super();
+
+		this.app = app;
+		this.path = path;
+
+		lineCount = 0;
+
+		pending = new ArrayList<String>();
+	}
+
+	/**
+	 * Get the path to the file which is loaded.
+	 * @return A non-null string representing the absolute or relative path of the file.
+	 */
+	String getPath() {
+		return path;
+	}
+
+	@Override
+	protected AppCore doInBackground() throws FileNotFoundException, SecurityException, IOException {
+		AppCore appCore = new AppCore(path, (List<Line> batch, long bytesRead, long totalBytes) -> {
+			// Format the lines the same way "AppCore.getContentString" does.
+			StringBuilder content = new StringBuilder();
+
+			for (Line line : batch) {
+				if (lineCount != 0) {
+					content.append('\n');
+				}
+
+				content.append(++lineCount);
+				content.append(" || ");
+				content.append(line.getLine());
+			}
+
+			synchronized (pending) {
+				pending.add(content.toString());
+			}
+
+			// Only schedules showing the pending batches.
+			publish();
+
+			if (totalBytes != 0) {
+				setProgress((int) (Math.min(bytesRead, totalBytes) * 100 / totalBytes));
+			}
+		}, SessionOption.WARM_UP);
+
+		// The result of a cancelled loader is never taken, so nothing else would close the session.
+		if (isCancelled()) {
+			appCore.close();
+
+			return null;
+		}
+
+		return appCore;
+	}
+
+	@Override
+	protected void process(List<String> chunks) {
+		if (isCancelled()) {
+			return;
+		}
+
+		showPending();
+	}
+
+	/**
+	 * Shows the batches which are not shown yet. Only called from the event dispatch thread.
+	 */
+	private void showPending() {
+		final String[] batches;
+
+		synchronized (pending) {
+			batches = pending.toArray(new String[pending.size()]);
+
+			pending.clear();
+		}
+
+		for (String batch : batches) {
+			app.appendContent(this, batch);
+		}
+	}
+
+	@Override
+	protected void done() {
+		if (isCancelled()) {
+			app.sessionCancelled(this);
+
+			return;
+		}
+
+		try {
+			AppCore appCore = get();
+
+			// The last batches may not be processed yet, and are ignored once the session is loaded.
+			showPending();
+
+			app.sessionLoaded(this, appCore);
+		} catch (ExecutionException exception) {
+			app.sessionCancelled(this);
+
+			Throwable cause = exception.getCause();
+
+			if (cause instanceof FileNotFoundException) {
+				GuiErrors.errorFileNotFound(app);
+			} else if (cause instanceof SecurityException) {
+				GuiErrors.errorSecurityViolation(app);
+
+				System.exit(101);
+			} else {
+				GuiErrors.errorCannotRead(app);
+			}
+		} catch (InterruptedException exception) {
+			// Cannot happen as the task is already done.
+			app.sessionCancelled(this);
+		}
+	}
+}
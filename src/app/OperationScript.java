@@ -0,0 +1,165 @@
+package app;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import app.core.Operation;
+
+/**
+ * Represents the parser of operation scripts, which list the operations to perform on a session (see {@link Operation}), one on each line.
+ * Lines and words are numbered from one, the same as in the other variants of the application.
+ * Empty lines and lines beginning with {@code #} are skipped. The supported operations are:
+ * <ul>
+ * <li>{@code swap-lines <line> <line>}</li>
+ * <li>{@code swap-words <line> <word> <line> <word>}</li>
+ * <li>{@code add-line}</li>
+ * <li>{@code remove-line}</li>
+ * </ul>
+ * This is a utility class, therefore uninstantiable nor inheritable.
+ */
+final class OperationScript {
+	/**
+	 * Not meant to be instantiated.
+	 */
+	private OperationScript() {
+		super();
+	}
+
+	/**
+	 * Parses a whole script.
+	 * @param script A reference to a string containing the script.
+	 * @return A non-null reference to the list of the operations, in order.
+	 * @throws IllegalArgumentException Thrown when any of the lines is not a valid operation.
+	 */
+	static List<Operation> parse(String script) throws IllegalArgumentException {
+		try {
+			return parse(new BufferedReader(new StringReader(script)));
+		} catch (IOException exception) {
+			// Reading a string never fails.
+			throw new IllegalStateException(exception);
+		}
+	}
+
+	/**
+	 * Parses a script until the end of the reader.
+	 * @param reader The reader from which the script is read.
+	 * @return A non-null reference to the list of the operations, in order.
+	 * @throws IOException Thrown when the script couldn't be read.
+	 * @throws IllegalArgumentException Thrown when any of the lines is not a valid operation.
+	 */
+	static List<Operation> parse(BufferedReader reader) throws IOException, IllegalArgumentException {
+		ArrayList<Operation> operations = new ArrayList<Operation>();
+
+		int lineNumber = 0;
+
+		for (String line; (line = reader.readLine()) != null;) {
+			++lineNumber;
+
+			line = line.trim();
+
+			if (line.isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+
+			try {
+				operations.add(parseOperation(split(line)));
+			} catch (IllegalArgumentException exception) {
+				throw new IllegalArgumentException(String.format("Line %d: %s", lineNumber, exception.getMessage()), exception);
+			}
+		}
+
+		return operations;
+	}
+
+	/**
+	 * Splits a line into it's tokens, which are separated by whitespace. Scanned by hand instead of splitting by a regular expression,
+	 * which would be compiled again for every line.
+	 * @param line A reference to a string containing the line, which doesn't begin nor end with whitespace.
+	 * @return A non-null reference to the array of tokens.
+	 */
+	private static String[] split(String line) {
+		ArrayList<String> tokens = new ArrayList<String>();
+
+		for (int z = 0; z < line.length();) {
+			final int start = z;
+
+			while (z < line.length() && !Character.isWhitespace(line.charAt(z))) {
+				++z;
+			}
+
+			tokens.add(line.substring(start, z));
+
+			while (z < line.length() && Character.isWhitespace(line.charAt(z))) {
+				++z;
+			}
+		}
+
+		return tokens.toArray(new String[tokens.size()]);
+	}
+
+	/**
+	 * Parses a single operation.
+	 * @param tokens The name of the operation followed by it's numbers.
+	 * @return A non-null reference to the operation.
+	 * @throws IllegalArgumentException Thrown when the name is not known or the numbers don't match it.
+	 */
+	private static Operation parseOperation(String[] tokens) throws IllegalArgumentException {
+		switch (tokens[0]) {
+		case "swap-lines":
+			checkCount(tokens, 2);
+
+			return Operation.swapLines(parseIndex(tokens[1]), parseIndex(tokens[2]));
+		case "swap-words":
+			checkCount(tokens, 4);
+
+			return Operation.swapWords(parseIndex(tokens[1]), parseIndex(tokens[2]), parseIndex(tokens[3]), parseIndex(tokens[4]));
+		case "add-line":
+			checkCount(tokens, 0);
+
+			return Operation.addEmptyLine();
+		case "remove-line":
+			checkCount(tokens, 0);
+
+			return Operation.removeLastLine();
+		default:
+			throw new IllegalArgumentException(String.format("Unknown operation \"%s\"!", tokens[0]));
+		}
+	}
+
+	/**
+	 * Checks the count of numbers given to an operation.
+	 * @param tokens The name of the operation followed by it's numbers.
+	 * @param count The count of numbers the operation takes.
+	 * @throws IllegalArgumentException Thrown when the count is different.
+	 */
+	private static void checkCount(String[] tokens, int count) throws IllegalArgumentException {
+		if (tokens.length != count + 1) {
+			throw new IllegalArgumentException(String.format("\"%s\" takes %d numbers!", tokens[0], count));
+		}
+	}
+
+	/**
+	 * Parses the number of a line or a word into it's index.
+	 * @param token A reference to a string containing the number, which is counted from one.
+	 * @return The index, which is counted from zero.
+	 * @throws IllegalArgumentException Thrown when the token is not a positive whole number.
+	 */
+	private static int parseIndex(String token) throws IllegalArgumentException {
+		final int number;
+
+		try {
+			number = Integer.parseInt(token);
+		} catch (NumberFormatException exception) {
+			throw new IllegalArgumentException(String.format("\"%s\" is not a whole number!", token), exception);
+		}
+
+		if (number < 1) {
+			throw new IllegalArgumentException("Lines and words are numbered from 1!");
+		}
+
+		return number - 1;
+	}
+}
@@ -0,0 +1,383 @@
+package app;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import app.core.AppCore;
+import app.core.ContentSnapshot;
+import app.core.Operation;
+
+/**
+ * Represents the headless server variant of the application, which keeps running and serves many clients over HTTP on the loopback address.
+ * Sessions are kept open between requests in a registry keyed by the absolute paths of their files, so a request doesn't have to
+ * load the whole file again. Requests for the same file are performed one at a time, while requests for different files run simultaneously.
+ * Sessions which were not used for a while are written down and closed. Optionally, the operations of each session are recorded in a journal
+ * next to it's file (see {@link app.core.SessionOption#JOURNAL}), so they are not lost when the server is stopped abruptly.
+ * Every request names it's file by the {@code path} query parameter:
+ * <ul>
+ * <li>{@code GET /content} responds with the content, formatted the same as in the console variant.</li>
+ * <li>{@code GET /stats} responds with the line count and the word count.</li>
+ * <li>{@code POST /ops} performs the operation script in the body as a whole (see {@link OperationScript}).</li>
+ * <li>{@code POST /save} writes down the content and closes the session.</li>
+ * </ul>
+ * This is a utility class, therefore uninstantiable (from outside) nor inheritable.
+ * To use this class see the {@code run} method.
+ */
+public final class ServerApp {
+	private static final int defaultPort;
+	private static final long idleTimeout;
+	private static final long evictionInterval;
+
+	private final HttpServer server;
+	private final ExecutorService requestExecutor;
+	private final ScheduledExecutorService evictor;
+	private final ConcurrentHashMap<String, ServerSession> sessions;
+	private final boolean journal;
+
+	static {
+		defaultPort = 8080;
+		idleTimeout = TimeUnit.MINUTES.toNanos(10);
+		evictionInterval = TimeUnit.MINUTES.toNanos(1);
+	}
+
+	/**
+	 * Creates the server listening on the given port of the loopback address.
+	 * @param port The port.
+	 * @param journal True when the sessions should keep a journal of their operations. Otherwise, false.
+	 * @throws IOException Thrown when the server couldn't be bound to the port.
+	 */
+	private ServerApp(int port, boolean journal) throws IOException {
+		super();
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		requestExecutor = createRequestExecutor();
+		evictor = Executors.newSingleThreadScheduledExecutor((Runnable task) -> {
+			Thread thread = new Thread(task, "session-evictor");
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+		sessions = new ConcurrentHashMap<String, ServerSession>();
+		this.journal = journal;
+
+		server.setExecutor(requestExecutor);
+		server.createContext("/content", (HttpExchange exchange) -> handle(exchange, "GET", this::content));
+		server.createContext("/stats", (HttpExchange exchange) -> handle(exchange, "GET", this::stats));
+		server.createContext("/ops", (HttpExchange exchange) -> handle(exchange, "POST", this::operations));
+		server.createContext("/save", (HttpExchange exchange) -> handle(exchange, "POST", this::save));
+	}
+
+	/**
+	 * Gets the port on which the server listens by default.
+	 * @return A positive integer representing the port.
+	 */
+	public static int getDefaultPort() {
+		return defaultPort;
+	}
+
+	/**
+	 * This method is used to start the application in server mode. The server keeps running after this returns,
+	 * until the process is stopped, at which point all open sessions are written down.
+	 * @param port The port of the loopback address on which the server listens.
+	 * @param journal True when the sessions should keep a journal of their operations next to their files. Otherwise, false.
+	 * @throws IOException Thrown when the server couldn't be bound to the port.
+	 */
+	public static void run(int port, boolean journal) throws IOException {
+		// Responses are small, so they must not wait for the previous packet to be acknowledged (Nagle's algorithm), which takes ~40 ms.
+		// Read once by the server implementation, so it is set before the server is created.
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+
+		ServerApp app = new ServerApp(port, journal);
+
+		app.server.start();
+		app.evictor.scheduleWithFixedDelay(app::evictIdleSessions, evictionInterval, evictionInterval, TimeUnit.NANOSECONDS);
+
+		Runtime.getRuntime().addShutdownHook(new Thread(app::stop, "server-shutdown"));
+
+		System.out.println("Listening on http://" + app.server.getAddress().getHostString() + ":" + app.server.getAddress().getPort());
+	}
+
+	/**
+	 * Creates the executor which handles each request on a new virtual thread, when the runtime supports them (Java 21 or newer).
+	 * Otherwise, the requests are handled by a pool of platform threads.
+	 * @return A non-null reference to the executor.
+	 */
+	private static ExecutorService createRequestExecutor() {
+		try {
+			// Looked up at runtime, so the application still builds and runs on older versions.
+			return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+		} catch (ReflectiveOperationException exception) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	/**
+	 * Represents the part of a request which is performed while holding the lock of it's session.
+	 */
+	@FunctionalInterface
+	private interface SessionRequest {
+		/**
+		 * Performs the request.
+		 * @param session The locked session.
+		 * @param exchange The exchange of the request.
+		 * @return A non-null reference to the supplier of the response, which is called once the session is unlocked.
+		 * @throws IOException Thrown when the file couldn't be loaded or written, or the request couldn't be read.
+		 */
+		Supplier<String> perform(ServerSession session, HttpExchange exchange) throws IOException;
+	}
+
+	/**
+	 * Handles a request by finding it's session, locking it and performing the request, then sends the response.
+	 * @param exchange The exchange of the request.
+	 * @param method The HTTP method of the request.
+	 * @param request The request.
+	 * @throws IOException Thrown when the response couldn't be sent.
+	 */
+	private void handle(HttpExchange exchange, String method, SessionRequest request) throws IOException {
+		try {
+			if (!exchange.getRequestMethod().equals(method)) {
+				respond(exchange, 405, "Use " + method + "!");
+
+				return;
+			}
+
+			final String response;
+
+			try {
+				final String path = queryParameter(exchange, "path");
+
+				if (path == null) {
+					throw new IllegalArgumentException("Missing the \"path\" parameter!");
+				}
+
+				// The response is formatted after the session is released.
+				response = perform(Paths.get(path).toAbsolutePath().normalize().toString(), exchange, request).get();
+			} catch (FileNotFoundException exception) {
+				respond(exchange, 404, "Cannot open specified file!");
+
+				return;
+			} catch (IllegalArgumentException | IndexOutOfBoundsException | NoSuchElementException exception) {
+				respond(exchange, 400, exception.getMessage() == null ? exception.toString() : exception.getMessage());
+
+				return;
+			} catch (IOException | SecurityException exception) {
+				respond(exchange, 500, "Cannot load or write down the content of the file!");
+
+				return;
+			} catch (RuntimeException exception) {
+				// Otherwise, the exchange would be closed without any response.
+				respond(exchange, 500, "Cannot perform the request!");
+
+				return;
+			}
+
+			respond(exchange, 200, response);
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * Performs a request while holding the lock of the session of the given file, opening the session when there is none.
+	 * @param filePath Absolute path to the file, which is the key of the session.
+	 * @param exchange The exchange of the request.
+	 * @param request The request.
+	 * @return A non-null reference to the supplier of the response.
+	 * @throws IOException Thrown when the file couldn't be loaded or written, or the request couldn't be read.
+	 */
+	private Supplier<String> perform(String filePath, HttpExchange exchange, SessionRequest request) throws IOException {
+		while (true) {
+			ServerSession session = sessions.computeIfAbsent(filePath, (String key) -> new ServerSession(key, journal));
+
+			// The session was closed in the meantime (e.g.: evicted), so a new one is opened.
+			if (!session.lock()) {
+				sessions.remove(filePath, session);
+
+				continue;
+			}
+
+			try {
+				return request.perform(session, exchange);
+			} finally {
+				// Sessions whose files couldn't be loaded are not kept, so the next request tries again.
+				if (!session.isLoaded()) {
+					session.close();
+
+					sessions.remove(filePath, session);
+				}
+
+				session.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Responds with the content of the session. Only taking the snapshot holds the session, while the content is formatted after it is released.
+	 * @param session The locked session.
+	 * @param exchange The exchange of the request.
+	 * @return A non-null reference to the supplier of the response.
+	 * @throws IOException Thrown when the file couldn't be loaded.
+	 */
+	private Supplier<String> content(ServerSession session, HttpExchange exchange) throws IOException {
+		final ContentSnapshot snapshot = session.getAppCore().snapshot();
+
+		return snapshot::getContentString;
+	}
+
+	/**
+	 * Responds with the line count and the word count of the session.
+	 * @param session The locked session.
+	 * @param exchange The exchange of the request.
+	 * @return A non-null reference to the supplier of the response.
+	 * @throws IOException Thrown when the file couldn't be loaded.
+	 */
+	private Supplier<String> stats(ServerSession session, HttpExchange exchange) throws IOException {
+		AppCore appCore = session.getAppCore();
+
+		final String response = String.format("lines: %d\nwords: %d", appCore.lineCount(), appCore.totalWordCount());
+
+		return () -> response;
+	}
+
+	/**
+	 * Performs the operation script in the body of the request on the session as a whole, so either all operations are performed or none of them.
+	 * @param session The locked session.
+	 * @param exchange The exchange of the request.
+	 * @return A non-null reference to the supplier of the response.
+	 * @throws IOException Thrown when the file couldn't be loaded or the request couldn't be read.
+	 */
+	private Supplier<String> operations(ServerSession session, HttpExchange exchange) throws IOException {
+		List<Operation> operations = OperationScript.parse(new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8));
+
+		session.getAppCore().applyBatch(operations);
+
+		final String response = String.format("Performed %d operations.", operations.size());
+
+		return () -> response;
+	}
+
+	/**
+	 * Writes down the content of the session and closes it.
+	 * @param session The locked session.
+	 * @param exchange The exchange of the request.
+	 * @return A non-null reference to the supplier of the response.
+	 * @throws IOException Thrown when the file couldn't be loaded or the content couldn't be written.
+	 */
+	private Supplier<String> save(ServerSession session, HttpExchange exchange) throws IOException {
+		// Loaded first, so a file which cannot be loaded is reported instead of being "saved".
+		session.getAppCore();
+		session.close();
+
+		sessions.remove(session.getFilePath(), session);
+
+		return () -> "Content written down.";
+	}
+
+	/**
+	 * Writes down and closes the sessions which were not used for longer than the idle timeout.
+	 * Sessions which are being used are skipped without waiting for them.
+	 */
+	private void evictIdleSessions() {
+		for (ServerSession session : sessions.values()) {
+			if (!session.lockIdle(idleTimeout)) {
+				continue;
+			}
+
+			try {
+				session.close();
+			} catch (IOException | SecurityException exception) {
+				System.err.println("Cannot write down the new content to the file " + session.getFilePath() + "!");
+			} finally {
+				sessions.remove(session.getFilePath(), session);
+
+				session.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Stops accepting requests and writes down all open sessions, waiting for the requests which hold them.
+	 */
+	private void stop() {
+		server.stop(0);
+		evictor.shutdownNow();
+
+		for (ServerSession session : sessions.values()) {
+			if (!session.lock()) {
+				continue;
+			}
+
+			try {
+				session.close();
+			} catch (IOException | SecurityException exception) {
+				System.err.println("Cannot write down the new content to the file " + session.getFilePath() + "!");
+			} finally {
+				session.unlock();
+			}
+		}
+
+		requestExecutor.shutdown();
+	}
+
+	/**
+	 * Sends a plain text response.
+	 * @param exchange The exchange of the request.
+	 * @param status The HTTP status code.
+	 * @param text A reference to a string containing the response.
+	 * @throws IOException Thrown when the response couldn't be sent.
+	 */
+	private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+		final byte[] body = text.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+
+		try (OutputStream output = exchange.getResponseBody()) {
+			output.write(body);
+		}
+	}
+
+	/**
+	 * Finds a parameter in the query of a request.
+	 * @param exchange The exchange of the request.
+	 * @param name The name of the parameter.
+	 * @return A reference to the decoded value of the parameter, or a null reference when there is none.
+	 */
+	private static String queryParameter(HttpExchange exchange, String name) {
+		final String query = exchange.getRequestURI().getRawQuery();
+
+		if (query == null) {
+			return null;
+		}
+
+		for (String parameter : query.split("&")) {
+			final int separator = parameter.indexOf('=');
+
+			if (separator != -1 && URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8).equals(name)) {
+				return URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8);
+			}
+		}
+
+		return null;
+	}
+}
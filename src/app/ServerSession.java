@@ -0,0 +1,162 @@
+package app;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import app.core.AppCore;
+import app.core.SessionOption;
+
+/**
+ * Represents a session of the server (see {@link ServerApp}) on a single file, which is shared by all requests for that file.
+ * The file is loaded by the first request, and the requests touching the session are performed one at a time while holding it's lock,
+ * so the core of the session is never used by two threads at once.
+ */
+final class ServerSession {
+	private final String filePath;
+	private final boolean journal;
+	private final ReentrantLock lock;
+
+	// Guarded by "lock".
+	private AppCore appCore;
+	private boolean closed;
+
+	private volatile long lastUsed;
+
+	/**
+	 * Creates a session of the given file, which is not loaded yet.
+	 * @param filePath Absolute path to the file.
+	 * @param journal True when the session should keep a journal of it's operations next to the file. Otherwise, false.
+	 */
+	ServerSession(String filePath, boolean journal) {
+		super();
+
+		this.filePath = filePath;
+		this.journal = journal;
+
+		lock = new ReentrantLock();
+
+		appCore = null;
+		closed = false;
+
+		lastUsed = System.nanoTime();
+	}
+
+	/**
+	 * Gets the path to the file of the session.
+	 * @return A non-null string representing the absolute path to the file.
+	 */
+	String getFilePath() {
+		return filePath;
+	}
+
+	/**
+	 * Locks the session for a request, waiting for the requests which came before.
+	 * @return True when the session is locked. False when it was already closed (e.g.: evicted), in which case it is not locked
+	 * and the request should use a new session.
+	 */
+	boolean lock() {
+		lock.lock();
+
+		if (closed) {
+			lock.unlock();
+
+			return false;
+		}
+
+		lastUsed = System.nanoTime();
+
+		return true;
+	}
+
+	/**
+	 * Locks the session for eviction, only when no request holds it.
+	 * @param idleNanos The time in nanoseconds for which the session must have been idle.
+	 * @return True when the session is locked and was idle long enough. Otherwise, false and the session is not locked.
+	 */
+	boolean lockIdle(long idleNanos) {
+		if (System.nanoTime() - lastUsed < idleNanos || !lock.tryLock()) {
+			return false;
+		}
+
+		if (closed || System.nanoTime() - lastUsed < idleNanos) {
+			lock.unlock();
+
+			return false;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Unlocks the session once the request is done with it.
+	 */
+	void unlock() {
+		lastUsed = System.nanoTime();
+
+		lock.unlock();
+	}
+
+	/**
+	 * Checks whether the file of the session was loaded. The session must be locked.
+	 * @return True when the file was loaded. Otherwise, false.
+	 */
+	boolean isLoaded() {
+		return appCore != null;
+	}
+
+	/**
+	 * Gets the core of the session, loading the file when it is used for the first time. The session must be locked.
+	 * @return A non-null reference to the core.
+	 * @throws IllegalArgumentException Thrown when the file is not a plain text file (*.txt) or cannot be read or written.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when there was an error while loading the file's content.
+	 */
+	AppCore getAppCore() throws IllegalArgumentException, FileNotFoundException, SecurityException, IOException {
+		if (appCore == null) {
+			File file = new File(filePath);
+
+			// The same checks as in the other variants of the application.
+			if (!file.getName().endsWith(".txt")) {
+				throw new IllegalArgumentException("Selected a file that is not plain text (*.txt)!");
+			}
+
+			if (!file.exists()) {
+				throw new FileNotFoundException(filePath);
+			}
+
+			if (!file.canRead()) {
+				throw new IllegalArgumentException("Cannot read the content of the file!");
+			}
+
+			if (!file.canWrite()) {
+				throw new IllegalArgumentException("Cannot write content to the file!");
+			}
+
+			appCore = journal ? new AppCore(filePath, SessionOption.JOURNAL, SessionOption.WARM_UP) : new AppCore(filePath, SessionOption.WARM_UP);
+		}
+
+		return appCore;
+	}
+
+	/**
+	 * Writes down the content and closes the session, after which it is never used again. The session must be locked.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when the content couldn't be written.
+	 */
+	void close() throws FileNotFoundException, SecurityException, IOException {
+		closed = true;
+
+		if (appCore != null) {
+			AppCore appCore = this.appCore;
+
+			// Not needed anymore.
+			this.appCore = null;
+
+			appCore.close();
+		}
+	}
+}
@@ -1,42 +1,533 @@
 package app.core;
 
 import java.io.FileNotFoundException;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
+import app.core.utils.AsciiWordTokenizer;
 import app.core.utils.Line;
+import app.core.utils.LineIndex;
 import app.core.utils.LineReader;
+import app.core.utils.LineWriter;
+import app.core.utils.MappedLineList;
+import app.core.utils.ParallelLineLoader;
+import app.core.utils.Tokenizer;
+import app.core.utils.WordOrder;
 
 /**
  * Represents application's core logic.
  * This class is responsible for all operations supported by the application.
+ * A session can only be used by one thread at a time, unless it was created with the {@code CONCURRENT} option (see {@link SessionOption}).
  */
 public final class AppCore implements AutoCloseable {
 	private static final String closedMessage;
+	private static final int loadBatchSize;
+	private static final int stripeCount;
+	private static final int stripeShift;
 
 	private final String filePath;
-	private ArrayList<Line> lines;
+	private final Tokenizer tokenizer;
+	private List<Line> lines;
+
+	// Offsets of the lines in the file at the time it was loaded, the time the file was last modified then (in nanoseconds)
+	// and the indexes of the lines changed since.
+	private LineIndex sourceIndex;
+	private long sourceModified;
+	private final BitSet dirtyLines;
+
+	// Present only when the session was created with the "JOURNAL" option.
+	private OperationJournal journal;
+
+	// Word counts of all lines, created when first needed and kept up to date by the operations since.
+	// When the session has stripes, it is changed either under the write lock or under the bookkeeping lock (see "lockWordCounts").
+	private WordCountIndex wordCounts;
+
+	// Present only while the words are parsed in the background after the session was created with the "WARM_UP" option.
+	private WordIndexWarmUp warmUp;
+
+	// Contents of all lines shared with the snapshots, created when the first snapshot is taken and kept up to date by the operations since.
+	private LineVector snapshotLines;
+
+	// Present only when the session was created with the "CONCURRENT" option. Operations on the whole content hold the write lock,
+	// while operations on one or two lines hold the read lock and the stripes of the ranges containing the lines.
+	private ReentrantReadWriteLock contentLock;
+
+	// Not present when the lines are mapped, as then every operation holds the write lock.
+	private ReentrantLock[] stripes;
+
+	// Guards the state shared by all lines (e.g.: the changed lines and the word counts) from operations holding different stripes.
+	private ReentrantLock bookkeepingLock;
 
 	// Using static initializer block as it is cleaner and organized.
 	static {
 		closedMessage = "Content already written down and closed!";
+		loadBatchSize = 1 << 12;
+		stripeCount = 1 << 8;
+		stripeShift = 6;
+	}
+
+	/**
+	 * Creates a new instance that loads up the content of the file and finds the words with the default tokenizer (see {@link AsciiWordTokenizer}).
+	 * @param filePath Absolute or relative path to the file on which the application will operate on.
+	 * @param options Options changing how the file is loaded and handled (see {@link SessionOption}).
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when there was an error while loading the file's content.
+	 */
+	public AppCore(String filePath, SessionOption... options) throws FileNotFoundException, SecurityException, IOException {
+		this(filePath, AsciiWordTokenizer.getInstance(), options);
 	}
 
 	/**
 	 * Creates a new instance that loads up the content of the file.
 	 * @param filePath Absolute or relative path to the file on which the application will operate on.
+	 * @param tokenizer The tokenizer which finds the words of the lines. A journal must be replayed with the tokenizer it was recorded with,
+	 * as the operations refer to the words by their indexes.
+	 * @param options Options changing how the file is loaded and handled (see {@link SessionOption}).
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when there was an error while loading the file's content.
+	 */
+	public AppCore(String filePath, Tokenizer tokenizer, SessionOption... options) throws FileNotFoundException, SecurityException, IOException {
+		super();
+
+		this.filePath = filePath;
+		this.tokenizer = tokenizer;
+		this.dirtyLines = new BitSet();
+
+		List<SessionOption> optionList = Arrays.asList(options);
+
+		if (optionList.contains(SessionOption.MEMORY_MAPPED)) {
+			MappedLineList mappedLines = new MappedLineList(filePath);
+
+			lines = mappedLines;
+			sourceIndex = mappedLines.getIndex();
+		} else if (optionList.contains(SessionOption.PARALLEL_LOAD)) {
+			ParallelLineLoader loader = new ParallelLineLoader(filePath);
+
+			lines = loader.getLines();
+			sourceIndex = loader.getIndex();
+		} else {
+			LineReader reader = new LineReader(filePath);
+
+			lines = reader.getLines();
+			sourceIndex = reader.getIndex();
+		}
+
+		sourceModified = Files.getLastModifiedTime(Paths.get(filePath)).to(TimeUnit.NANOSECONDS);
+
+		startSession(optionList, !(lines instanceof MappedLineList));
+	}
+
+	/**
+	 * Creates a new instance that loads up the content of the file sequentially while reporting the progress,
+	 * and finds the words with the default tokenizer (see {@link AsciiWordTokenizer}).
+	 * Loading can be cancelled by interrupting the loading thread, in which case a {@link java.nio.channels.ClosedByInterruptException} is thrown.
+	 * @param filePath Absolute or relative path to the file on which the application will operate on.
+	 * @param listener The listener which is notified from the loading thread each time a batch of lines is loaded.
+	 * @param options Options changing how the file is handled (see {@link SessionOption}). The file is always loaded sequentially,
+	 * so {@code MEMORY_MAPPED} and {@code PARALLEL_LOAD} have no effect.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when there was an error while loading the file's content.
+	 */
+	public AppCore(String filePath, LoadListener listener, SessionOption... options) throws FileNotFoundException, SecurityException, IOException {
+		this(filePath, listener, AsciiWordTokenizer.getInstance(), options);
+	}
+
+	/**
+	 * Creates a new instance that loads up the content of the file sequentially while reporting the progress.
+	 * Loading can be cancelled by interrupting the loading thread, in which case a {@link java.nio.channels.ClosedByInterruptException} is thrown.
+	 * @param filePath Absolute or relative path to the file on which the application will operate on.
+	 * @param listener The listener which is notified from the loading thread each time a batch of lines is loaded.
+	 * @param tokenizer The tokenizer which finds the words of the lines. A journal must be replayed with the tokenizer it was recorded with,
+	 * as the operations refer to the words by their indexes.
+	 * @param options Options changing how the file is handled (see {@link SessionOption}). The file is always loaded sequentially,
+	 * so {@code MEMORY_MAPPED} and {@code PARALLEL_LOAD} have no effect.
 	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
 	 * @throws SecurityException Thrown when there is a security violation.
 	 * @throws IOException Thrown when there was an error while loading the file's content.
 	 */
-	public AppCore(String filePath) throws FileNotFoundException, SecurityException, IOException {
+	public AppCore(String filePath, LoadListener listener, Tokenizer tokenizer, SessionOption... options) throws FileNotFoundException, SecurityException, IOException {
 		super();
 
 		this.filePath = filePath;
-		lines = new LineReader(filePath).getLines();
+		this.tokenizer = tokenizer;
+		this.dirtyLines = new BitSet();
+
+		final long totalBytes = Files.size(Paths.get(filePath));
+
+		LineReader reader = new LineReader(filePath);
+		ArrayList<Line> lines = new ArrayList<Line>();
+
+		int notified = 0;
+
+		while (!reader.isFinished()) {
+			lines.add(reader.getLine());
+
+			if (lines.size() - notified == loadBatchSize || reader.isFinished()) {
+				listener.linesLoaded(Collections.unmodifiableList(lines.subList(notified, lines.size())), reader.getPosition(), totalBytes);
+
+				notified = lines.size();
+			}
+		}
+
+		this.lines = lines;
+		this.sourceIndex = reader.getIndex();
+		this.sourceModified = Files.getLastModifiedTime(Paths.get(filePath)).to(TimeUnit.NANOSECONDS);
+
+		startSession(Arrays.asList(options), true);
+	}
+
+	/**
+	 * Applies the options which take effect once the content is loaded.
+	 * @param optionList The options of the session.
+	 * @param canWarmUp Whether the lines can be parsed in the background, which is not the case when they are decoded on demand.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when the journal couldn't be opened or read.
+	 */
+	private void startSession(List<SessionOption> optionList, boolean canWarmUp) throws SecurityException, IOException {
+		if (optionList.contains(SessionOption.CONCURRENT)) {
+			contentLock = new ReentrantReadWriteLock();
+
+			// Mapped lines are decoded into a shared map even when they are only read, so they cannot be striped.
+			if (!(lines instanceof MappedLineList)) {
+				stripes = new ReentrantLock[stripeCount];
+
+				for (int z = 0; z < stripeCount; ++z) {
+					stripes[z] = new ReentrantLock();
+				}
+
+				bookkeepingLock = new ReentrantLock();
+			}
+		}
+
+		if (optionList.contains(SessionOption.JOURNAL)) {
+			Path path = Paths.get(filePath);
+
+			OperationJournal journal = new OperationJournal(filePath, Files.size(path), Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS));
+
+			try {
+				journal.replay(this);
+			} catch (IOException | RuntimeException exception) {
+				journal.close();
+
+				throw exception;
+			}
+
+			this.journal = journal;
+		}
+
+		// Started after the journal is replayed, so the replayed operations don't have to wait for it.
+		if (canWarmUp && optionList.contains(SessionOption.WARM_UP)) {
+			warmUp = new WordIndexWarmUp(lines, tokenizer);
+		}
+	}
+
+	/**
+	 * Gets a line before an operation touches it's words or position, taking it over from the background parsing, if any.
+	 * The line is set to use the session's tokenizer.
+	 * @param lineIndex Index of the line.
+	 * @return A non-null reference to the line.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	private Line line(int lineIndex) throws IndexOutOfBoundsException {
+		if (warmUp != null) {
+			warmUp.claim(lineIndex);
+		}
+
+		Line line = lines.get(lineIndex);
+
+		line.setTokenizer(tokenizer);
+
+		return line;
+	}
+
+	/**
+	 * Locks two lines for an operation which touches only them, when the session is concurrent.
+	 * Each line is guarded by the stripe of the range of lines containing it. The stripes are always locked in the order of their indexes,
+	 * so two operations never wait for each other's stripes (deadlock). The read lock is held as well, so the line count doesn't change.
+	 * The indexes need not be in bounds, as they are checked by the operation itself.
+	 * @param firstLine Index of the first line.
+	 * @param secondLine Index of the second line, which can be the same as the first one.
+	 */
+	private void lockLines(int firstLine, int secondLine) {
+		if (contentLock == null) {
+			return;
+		}
+
+		if (stripes == null) {
+			contentLock.writeLock().lock();
+
+			return;
+		}
+
+		contentLock.readLock().lock();
+
+		final int first = stripe(firstLine), second = stripe(secondLine);
+
+		stripes[Math.min(first, second)].lock();
+
+		if (first != second) {
+			stripes[Math.max(first, second)].lock();
+		}
+	}
+
+	/**
+	 * Unlocks two lines locked through {@code lockLines}.
+	 * @param firstLine Index of the first line.
+	 * @param secondLine Index of the second line.
+	 */
+	private void unlockLines(int firstLine, int secondLine) {
+		if (contentLock == null) {
+			return;
+		}
+
+		if (stripes == null) {
+			contentLock.writeLock().unlock();
+
+			return;
+		}
+
+		final int first = stripe(firstLine), second = stripe(secondLine);
+
+		if (first != second) {
+			stripes[Math.max(first, second)].unlock();
+		}
+
+		stripes[Math.min(first, second)].unlock();
+
+		contentLock.readLock().unlock();
+	}
+
+	/**
+	 * Locks a line for an operation which touches only it, when the session is concurrent. This is equivalent to {@code lockLines(lineIndex, lineIndex)}.
+	 * @param lineIndex Index of the line.
+	 */
+	private void lockLine(int lineIndex) {
+		lockLines(lineIndex, lineIndex);
+	}
+
+	/**
+	 * Unlocks a line locked through {@code lockLine}.
+	 * @param lineIndex Index of the line.
+	 */
+	private void unlockLine(int lineIndex) {
+		unlockLines(lineIndex, lineIndex);
+	}
+
+	/**
+	 * Gets the stripe guarding the range of lines containing the given line. Consecutive ranges have consecutive stripes.
+	 * @param lineIndex Index of the line.
+	 * @return Index of the stripe.
+	 */
+	private int stripe(int lineIndex) {
+		return (lineIndex >>> stripeShift) & (stripeCount - 1);
+	}
+
+	/**
+	 * Locks the line count for an operation which doesn't touch any lines, when the session is concurrent.
+	 */
+	private void lockStructure() {
+		if (contentLock != null) {
+			contentLock.readLock().lock();
+		}
+	}
+
+	/**
+	 * Unlocks the line count locked through {@code lockStructure}.
+	 */
+	private void unlockStructure() {
+		if (contentLock != null) {
+			contentLock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Locks the whole content for an operation which touches all lines or adds or removes them, when the session is concurrent.
+	 */
+	private void lockContent() {
+		if (contentLock != null) {
+			contentLock.writeLock().lock();
+		}
+	}
+
+	/**
+	 * Unlocks the whole content locked through {@code lockContent}.
+	 */
+	private void unlockContent() {
+		if (contentLock != null) {
+			contentLock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Locks the state shared by all lines while it is changed by an operation holding only the stripes of it's lines, when the session is concurrent.
+	 */
+	private void lockBookkeeping() {
+		if (bookkeepingLock != null) {
+			bookkeepingLock.lock();
+		}
+	}
+
+	/**
+	 * Unlocks the state shared by all lines locked through {@code lockBookkeeping}.
+	 */
+	private void unlockBookkeeping() {
+		if (bookkeepingLock != null) {
+			bookkeepingLock.unlock();
+		}
+	}
+
+	/**
+	 * Locks the line count for an operation which only reads lines chosen once the count is known, when the session is concurrent.
+	 * The lines are then locked one by one through {@code lockStripe}. Without stripes, the write lock is held instead,
+	 * as reading a mapped line decodes it into a map shared by all lines.
+	 */
+	private void lockReading() {
+		if (stripes == null) {
+			lockContent();
+		} else {
+			lockStructure();
+		}
+	}
+
+	/**
+	 * Unlocks the line count locked through {@code lockReading}.
+	 */
+	private void unlockReading() {
+		if (stripes == null) {
+			unlockContent();
+		} else {
+			unlockStructure();
+		}
+	}
+
+	/**
+	 * Locks a line while the line count is locked through {@code lockReading}, when the session has stripes.
+	 * @param lineIndex Index of the line.
+	 */
+	private void lockStripe(int lineIndex) {
+		if (stripes != null) {
+			stripes[stripe(lineIndex)].lock();
+		}
+	}
+
+	/**
+	 * Unlocks a line locked through {@code lockStripe}.
+	 * @param lineIndex Index of the line.
+	 */
+	private void unlockStripe(int lineIndex) {
+		if (stripes != null) {
+			stripes[stripe(lineIndex)].unlock();
+		}
+	}
+
+	/**
+	 * Locks the word counts of all lines for an operation which only reads them, when the session is concurrent, counting them first if not already done.
+	 * The read lock keeps lines from being added or removed and the bookkeeping lock keeps swapped lines from changing the counts meanwhile,
+	 * so other lines can be changed while the counts are read. Without stripes, the write lock is held instead.
+	 */
+	private void lockWordCounts() {
+		if (stripes == null) {
+			lockContent();
+
+			return;
+		}
+
+		lockStructure();
+
+		try {
+			// Another operation might count them first, so they are checked again once all stripes are held (see "getWordCounts").
+			if (wordCounts == null && lines != null) {
+				countWordsOfAllLines();
+			}
+		} catch (RuntimeException | Error exception) {
+			unlockStructure();
+
+			throw exception;
+		}
+
+		lockBookkeeping();
+	}
+
+	/**
+	 * Unlocks the word counts locked through {@code lockWordCounts}.
+	 */
+	private void unlockWordCounts() {
+		if (stripes == null) {
+			unlockContent();
+
+			return;
+		}
+
+		unlockBookkeeping();
+		unlockStructure();
+	}
+
+	/**
+	 * Counts the words of all lines while only the read lock is held, instead of the write lock.
+	 * Every stripe is held meanwhile, locked in the order of their indexes the same as in {@code lockLines}, so no line is changed or moved
+	 * until all of them are counted and the counts match the lines. Operations which don't touch any lines are not blocked.
+	 */
+	private void countWordsOfAllLines() {
+		for (ReentrantLock stripe : stripes) {
+			stripe.lock();
+		}
+
+		try {
+			lockBookkeeping();
+
+			try {
+				getWordCounts();
+			} finally {
+				unlockBookkeeping();
+			}
+		} finally {
+			for (int z = stripes.length - 1; z >= 0; --z) {
+				stripes[z].unlock();
+			}
+		}
+	}
+
+	/**
+	 * Marks a line whose words were moved as changed, and updates it's content shared with the snapshots, if any.
+	 * @param lineIndex Index of the line.
+	 */
+	private void markChanged(int lineIndex) {
+		lockBookkeeping();
+
+		try {
+			dirtyLines.set(lineIndex);
+
+			updateSnapshotLine(lineIndex);
+		} finally {
+			unlockBookkeeping();
+		}
+	}
+
+	/**
+	 * Gets the tokenizer which finds the words of the lines.
+	 * @return A non-null reference to the tokenizer.
+	 */
+	public Tokenizer getTokenizer() {
+		return tokenizer;
 	}
 
 	/**
@@ -57,14 +548,38 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when any of the indexes are out of bounds.
 	 */
 	public void swapWords(int firstLineIndex, int firstWordIndex, int secondLineIndex, int secondWordIndex) throws IllegalStateException, IndexOutOfBoundsException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockLines(firstLineIndex, secondLineIndex);
 
 		try {
-			lines.get(firstLineIndex).swapWords(lines.get(secondLineIndex), firstWordIndex, secondWordIndex);
-		} catch (NullPointerException exception) {
-			throw new IllegalStateException(closedMessage);
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			try {
+				line(firstLineIndex).swapWords(line(secondLineIndex), firstWordIndex, secondWordIndex);
+
+				lockBookkeeping();
+
+				try {
+					dirtyLines.set(firstLineIndex);
+					dirtyLines.set(secondLineIndex);
+
+					updateSnapshotLine(firstLineIndex);
+					updateSnapshotLine(secondLineIndex);
+				} finally {
+					unlockBookkeeping();
+				}
+
+				// Words are swapped whole, so the word counts of the lines stay the same.
+
+				if (journal != null) {
+					journal.swapWords(firstLineIndex, firstWordIndex, secondLineIndex, secondWordIndex);
+				}
+			} catch (NullPointerException exception) {
+				throw new IllegalStateException(closedMessage);
+			}
+		} finally {
+			unlockLines(firstLineIndex, secondLineIndex);
 		}
 	}
 
@@ -76,20 +591,764 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when the indexes of the lines are out of bounds.
 	 */
 	public void swapLines(int firstLine, int secondLine) throws IllegalStateException, IndexOutOfBoundsException {
-		if (lines == null) {
-			throw new IllegalStateException();
+		lockLines(firstLine, secondLine);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			if (firstLine == secondLine) {
+				return;
+			}
+
+			try {
+				Line temp = line(firstLine);
+				lines.set(firstLine, line(secondLine));
+				lines.set(secondLine, temp);
+
+				lockBookkeeping();
+
+				try {
+					dirtyLines.set(firstLine);
+					dirtyLines.set(secondLine);
+
+					updateSnapshotLine(firstLine);
+					updateSnapshotLine(secondLine);
+
+					if (wordCounts != null) {
+						wordCounts.swap(firstLine, secondLine);
+					} else if (warmUp != null) {
+						warmUp.linesMoved();
+					}
+				} finally {
+					unlockBookkeeping();
+				}
+
+				if (journal != null) {
+					journal.swapLines(firstLine, secondLine);
+				}
+			} catch (NullPointerException exception) {
+				throw new IllegalStateException(closedMessage);
+			}
+		} finally {
+			unlockLines(firstLine, secondLine);
 		}
+	}
+
+	/**
+	 * Moves all words of a line at once, so that each word index gets the word which was at the given index before.
+	 * The line is built again only once, together with it's words, no matter how many words are moved.
+	 * @param lineIndex The index of the line.
+	 * @param order For each word index, the index of the word which is moved to it. It must contain every word index exactly once.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 * @throws IllegalArgumentException Thrown when the array is not a permutation of the word indexes, in which case nothing is changed.
+	 */
+	public void permuteWords(int lineIndex, int[] order) throws IllegalStateException, IndexOutOfBoundsException, IllegalArgumentException {
+		lockLine(lineIndex);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			line(lineIndex).permuteWords(order);
+
+			// Words are moved whole, so the word count of the line stays the same.
+			markChanged(lineIndex);
+
+			if (journal != null) {
+				journal.permuteWords(lineIndex, order);
+			}
+		} finally {
+			unlockLine(lineIndex);
+		}
+	}
+
+	/**
+	 * Reverses the order of the words of a line.
+	 * @param lineIndex The index of the line.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	public void reverseWords(int lineIndex) throws IllegalStateException, IndexOutOfBoundsException {
+		lockLine(lineIndex);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			line(lineIndex).reverseWords();
+
+			markChanged(lineIndex);
+
+			if (journal != null) {
+				journal.reverseWords(lineIndex);
+			}
+		} finally {
+			unlockLine(lineIndex);
+		}
+	}
+
+	/**
+	 * Rotates the words of a line, the same as {@link Collections#rotate} does.
+	 * @param lineIndex The index of the line.
+	 * @param distance The distance by which the words are moved towards the end, which can be negative to move them towards the beginning.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	public void rotateWords(int lineIndex, int distance) throws IllegalStateException, IndexOutOfBoundsException {
+		lockLine(lineIndex);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			line(lineIndex).rotateWords(distance);
+
+			markChanged(lineIndex);
+
+			if (journal != null) {
+				journal.rotateWords(lineIndex, distance);
+			}
+		} finally {
+			unlockLine(lineIndex);
+		}
+	}
+
+	/**
+	 * Sorts the words of a line in the given order, keeping the order of the words which are equal by it.
+	 * @param lineIndex The index of the line.
+	 * @param order The order.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	public void sortWords(int lineIndex, WordOrder order) throws IllegalStateException, IndexOutOfBoundsException {
+		lockLine(lineIndex);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			line(lineIndex).sortWords(order);
+
+			markChanged(lineIndex);
+
+			if (journal != null) {
+				journal.sortWords(lineIndex, order);
+			}
+		} finally {
+			unlockLine(lineIndex);
+		}
+	}
+
+	/**
+	 * Moves all lines at once, so that each index gets the line which was at the given index before.
+	 * @param permutation For each index, the index of the line which is moved to it. It must contain every line index exactly once.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IllegalArgumentException Thrown when the array is not a permutation of the line indexes, in which case nothing is changed.
+	 */
+	public void permuteLines(int[] permutation) throws IllegalStateException, IllegalArgumentException {
+		lockContent();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			if (permutation.length != lines.size()) {
+				throw new IllegalArgumentException("There must be an index for every line!");
+			}
+
+			BitSet seen = new BitSet(permutation.length);
+
+			for (int source : permutation) {
+				if (source < 0 || permutation.length <= source || seen.get(source)) {
+					throw new IllegalArgumentException("Every line index must be present exactly once!");
+				}
+
+				seen.set(source);
+			}
+
+			moveLines(0, permutation);
+
+			if (journal != null) {
+				journal.permuteLines(permutation);
+			}
+		} finally {
+			unlockContent();
+		}
+	}
+
+	/**
+	 * Reverses the order of a range of lines.
+	 * @param from The index of the first line of the range.
+	 * @param to The index just after the last line of the range.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the range is out of bounds.
+	 */
+	public void reverseLines(int from, int to) throws IllegalStateException, IndexOutOfBoundsException {
+		lockContent();
+
+		try {
+			checkLineRange(from, to);
+
+			int[] sources = new int[to - from];
+
+			for (int z = 0; z < sources.length; ++z) {
+				sources[z] = to - 1 - z;
+			}
+
+			moveLines(from, sources);
+
+			if (journal != null) {
+				journal.reverseLines(from, to);
+			}
+		} finally {
+			unlockContent();
+		}
+	}
+
+	/**
+	 * Rotates a range of lines, the same as {@link Collections#rotate} does.
+	 * The line at index {@code i} of the range is moved to index {@code (i + distance) mod (to - from)} of the range.
+	 * @param from The index of the first line of the range.
+	 * @param to The index just after the last line of the range.
+	 * @param distance The distance by which the lines are moved towards the end, which can be negative to move them towards the beginning.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the range is out of bounds.
+	 */
+	public void rotateLines(int from, int to, int distance) throws IllegalStateException, IndexOutOfBoundsException {
+		lockContent();
+
+		try {
+			checkLineRange(from, to);
+
+			final int length = to - from;
+
+			if (length == 0) {
+				return;
+			}
+
+			final int shift = Math.floorMod(distance, length);
+
+			int[] sources = new int[length];
+
+			for (int z = 0; z < length; ++z) {
+				sources[z] = from + (z < shift ? z - shift + length : z - shift);
+			}
+
+			moveLines(from, sources);
+
+			if (journal != null) {
+				journal.rotateLines(from, to, distance);
+			}
+		} finally {
+			unlockContent();
+		}
+	}
+
+	/**
+	 * Shuffles all lines randomly, the same as {@link Collections#shuffle(List, Random)} does.
+	 * The same seed always gives the same order of the same lines, so a shuffle can be repeated.
+	 * @param seed The seed of the random number generator.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 */
+	public void shuffleLines(long seed) throws IllegalStateException {
+		lockContent();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			Random random = new Random(seed);
+			int[] sources = new int[lines.size()];
+
+			for (int z = 0; z < sources.length; ++z) {
+				sources[z] = z;
+			}
+
+			for (int z = sources.length - 1; z > 0; --z) {
+				final int other = random.nextInt(z + 1), source = sources[z];
+
+				sources[z] = sources[other];
+				sources[other] = source;
+			}
+
+			moveLines(0, sources);
+
+			if (journal != null) {
+				journal.shuffleLines(seed);
+			}
+		} finally {
+			unlockContent();
+		}
+	}
+
+	/**
+	 * Sorts all lines in the given order, keeping the order of the lines which are equal by it.
+	 * The lines are sorted on all available processors and then moved in place, without copying their contents.
+	 * @param order The order.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 */
+	public void sortLines(LineOrder order) throws IllegalStateException {
+		lockContent();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			int[] sources = new int[lines.size()];
+
+			if (order == LineOrder.WORD_COUNT) {
+				WordCountIndex wordCounts = getWordCounts();
+
+				// The index in the lower half keeps lines with the same word count in order.
+				long[] keys = new long[sources.length];
+
+				for (int z = 0; z < keys.length; ++z) {
+					keys[z] = (long) wordCounts.get(z) << Integer.SIZE | z;
+				}
+
+				Arrays.parallelSort(keys);
+
+				for (int z = 0; z < keys.length; ++z) {
+					sources[z] = (int) keys[z];
+				}
+			} else {
+				final Line[] sorted;
+				Integer[] indexes = new Integer[sources.length];
+
+				if (lines instanceof MappedLineList) {
+					// Decode the untouched lines without keeping them in the list, only the moved ones are kept once they are moved.
+					sorted = ((MappedLineList) lines).lines().toArray(Line[]::new);
+				} else {
+					sorted = new Line[sources.length];
+
+					for (int z = 0; z < sorted.length; ++z) {
+						sorted[z] = line(z);
+					}
+				}
+
+				for (int z = 0; z < indexes.length; ++z) {
+					indexes[z] = z;
+				}
+
+				// Sorting objects in parallel is stable.
+				Arrays.parallelSort(indexes, (Integer first, Integer second) -> sorted[first].compareContent(sorted[second]));
+
+				for (int z = 0; z < indexes.length; ++z) {
+					sources[z] = indexes[z];
+				}
+			}
+
+			moveLines(0, sources);
+
+			if (journal != null) {
+				journal.sortLines(order);
+			}
+		} finally {
+			unlockContent();
+		}
+	}
+
+	/**
+	 * Checks a range of lines.
+	 * @param from The index of the first line of the range.
+	 * @param to The index just after the last line of the range.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the range is out of bounds.
+	 */
+	private void checkLineRange(int from, int to) throws IllegalStateException, IndexOutOfBoundsException {
+		if (lines == null) {
+			throw new IllegalStateException();
+		}
+
+		if (from < 0 || to < from || lines.size() < to) {
+			throw new IndexOutOfBoundsException(String.format("Range [%d, %d) is out of bounds!", from, to));
+		}
+	}
+
+	/**
+	 * Moves the lines of a range in place by following the cycles of the permutation, so each line is moved only once.
+	 * @param from The index of the first line of the range.
+	 * @param sources For each line of the range, the index of the line which is moved to it, which is in the range as well.
+	 * Every index of the range must be present exactly once.
+	 */
+	private void moveLines(int from, int[] sources) {
+		BitSet moved = new BitSet(sources.length);
+
+		for (int z = 0; z < sources.length; ++z) {
+			if (sources[z] != from + z) {
+				moved.set(z);
+			}
+		}
+
+		if (moved.isEmpty()) {
+			return;
+		}
+
+		for (int z = moved.nextSetBit(0); z >= 0; z = moved.nextSetBit(z + 1)) {
+			if (warmUp != null) {
+				warmUp.claim(from + z);
+			}
+
+			dirtyLines.set(from + z);
+		}
+
+		BitSet placed = new BitSet(sources.length);
+
+		for (int start = moved.nextSetBit(0); start >= 0; start = moved.nextSetBit(start + 1)) {
+			if (placed.get(start)) {
+				continue;
+			}
+
+			// Every line of the cycle takes the place of the previous one, and the first line is put in the place of the last one.
+			Line first = lines.get(from + start);
+
+			for (int z = start;;) {
+				placed.set(z);
+
+				final int source = sources[z] - from;
+
+				if (source == start) {
+					lines.set(from + z, first);
+
+					break;
+				}
+
+				lines.set(from + z, lines.get(from + source));
+
+				z = source;
+			}
+		}
+
+		for (int z = moved.nextSetBit(0); z >= 0; z = moved.nextSetBit(z + 1)) {
+			updateSnapshotLine(from + z);
+		}
+
+		if (wordCounts != null) {
+			wordCounts.move(from, sources);
+		} else if (warmUp != null) {
+			warmUp.linesMoved();
+		}
+	}
+
+	/**
+	 * Performs a list of operations as a whole, with the same result as performing them one by one.
+	 * All indexes are checked before anything is changed, so either all of the operations are performed or none of them.
+	 * The swaps of words are composed into the final order of the words of each line, so every line whose words were moved
+	 * is built again only once, no matter how many times it's words were swapped.
+	 * @param operations The operations, in order.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when any of the indexes are out of bounds, in which case nothing is changed.
+	 * @throws NoSuchElementException Thrown when a line is removed while the content is already empty, in which case nothing is changed.
+	 */
+	public void applyBatch(List<Operation> operations) throws IllegalStateException, IndexOutOfBoundsException, NoSuchElementException {
+		lockContent();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			final int initialSize = lines.size();
+
+			// The line at each position changed by the operations, by the key of the line. Lines at the other positions stay in place.
+			// Lines loaded before have their initial index as the key, while the added lines come after them.
+			HashMap<Integer, Integer> positions = new HashMap<Integer, Integer>();
+			HashSet<Integer> removed = new HashSet<Integer>();
+			ArrayList<Line> added = new ArrayList<Line>();
+
+			// The lines whose words were moved and the key of the line and the index of the word now at each of their words.
+			HashMap<Integer, Line> touched = new HashMap<Integer, Line>();
+			HashMap<Integer, int[]> sourceLines = new HashMap<Integer, int[]>();
+			HashMap<Integer, int[]> sourceWords = new HashMap<Integer, int[]>();
+
+			int size = initialSize;
+
+			for (Operation operation : operations) {
+				switch (operation.getType()) {
+				case SWAP_LINES: {
+					final int first = operation.getFirstLine(), second = operation.getSecondLine();
+
+					if (first == second) {
+						break;
+					}
+
+					checkLineIndex(first, size);
+					checkLineIndex(second, size);
+
+					final int firstKey = positions.getOrDefault(first, first);
+
+					positions.put(first, positions.getOrDefault(second, second));
+					positions.put(second, firstKey);
+
+					break;
+				}
+				case SWAP_WORDS: {
+					checkLineIndex(operation.getFirstLine(), size);
+					checkLineIndex(operation.getSecondLine(), size);
+
+					final int firstKey = positions.getOrDefault(operation.getFirstLine(), operation.getFirstLine());
+					final int secondKey = positions.getOrDefault(operation.getSecondLine(), operation.getSecondLine());
+					final int firstWord = operation.getFirstWord(), secondWord = operation.getSecondWord();
+
+					if (firstKey == secondKey && firstWord == secondWord) {
+						break;
+					}
+
+					int[] firstLines = touchWords(firstKey, initialSize, added, touched, sourceLines, sourceWords);
+					int[] secondLines = touchWords(secondKey, initialSize, added, touched, sourceLines, sourceWords);
+					int[] firstWords = sourceWords.get(firstKey), secondWords = sourceWords.get(secondKey);
+
+					if (firstWord < 0 || firstLines.length <= firstWord) {
+						throw new IndexOutOfBoundsException(firstWord);
+					}
+
+					if (secondWord < 0 || secondLines.length <= secondWord) {
+						throw new IndexOutOfBoundsException(secondWord);
+					}
+
+					final int line = firstLines[firstWord], word = firstWords[firstWord];
+
+					firstLines[firstWord] = secondLines[secondWord];
+					firstWords[firstWord] = secondWords[secondWord];
+					secondLines[secondWord] = line;
+					secondWords[secondWord] = word;
+
+					break;
+				}
+				case ADD_EMPTY_LINE:
+					positions.put(size, initialSize + added.size());
+					added.add(Line.empty());
+
+					++size;
+
+					break;
+				case REMOVE_LAST_LINE:
+					if (size == 0) {
+						throw new NoSuchElementException("Cannot remove any lines because there aren't any.");
+					}
+
+					--size;
+
+					Integer key = positions.remove(size);
+
+					removed.add(key == null ? size : key);
+
+					break;
+				}
+			}
+
+			// Everything was checked, so from here on the operations are performed.
+
+			// The lines built again at their initial positions, whose contents shared with the snapshots are updated once the lines are moved.
+			ArrayList<Integer> rebuiltKeys = new ArrayList<Integer>();
+
+			if (!touched.isEmpty()) {
+				touched.keySet().removeAll(removed);
+
+				Line[] rebuilt = new Line[touched.size()];
+				Line[][] rebuiltSourceLines = new Line[rebuilt.length][];
+				int[][] rebuiltSourceWords = new int[rebuilt.length][];
+
+				int index = 0;
+
+				for (Map.Entry<Integer, Line> entry : touched.entrySet()) {
+					int[] keys = sourceLines.get(entry.getKey());
+
+					rebuilt[index] = entry.getValue();
+					rebuiltSourceLines[index] = new Line[keys.length];
+					rebuiltSourceWords[index] = sourceWords.get(entry.getKey());
+
+					for (int z = 0; z < keys.length; ++z) {
+						rebuiltSourceLines[index][z] = keys[z] < initialSize ? lines.get(keys[z]) : added.get(keys[z] - initialSize);
+					}
+
+					// Lines which were only touched by words swapped back need not be built again.
+					if (isIdentity(entry.getKey(), keys, rebuiltSourceWords[index])) {
+						continue;
+					}
+
+					// Added lines are marked below, at their positions.
+					if (entry.getKey() < initialSize) {
+						dirtyLines.set(entry.getKey());
+						rebuiltKeys.add(entry.getKey());
+					}
+
+					++index;
+				}
+
+				Line.replaceWords(Arrays.copyOf(rebuilt, index), Arrays.copyOf(rebuiltSourceLines, index), Arrays.copyOf(rebuiltSourceWords, index));
+			}
+
+			if (!positions.isEmpty() || size != initialSize) {
+				// Taken before the lines are moved, as they are found by their initial positions.
+				HashMap<Integer, Line> moved = new HashMap<Integer, Line>();
+				HashMap<Integer, Integer> movedCounts = new HashMap<Integer, Integer>();
+
+				for (Map.Entry<Integer, Integer> entry : positions.entrySet()) {
+					final int key = entry.getValue();
+
+					moved.put(entry.getKey(), key < initialSize ? line(key) : added.get(key - initialSize));
+
+					if (wordCounts != null) {
+						movedCounts.put(entry.getKey(), key < initialSize ? wordCounts.get(key) : 0);
+					}
+
+					if (warmUp != null) {
+						warmUp.claim(entry.getKey());
+					}
+				}
+
+				while (size < lines.size()) {
+					lines.remove(lines.size() - 1);
+
+					if (wordCounts != null) {
+						wordCounts.removeLast();
+					}
+				}
+
+				dirtyLines.clear(size, Math.max(size, initialSize));
+
+				for (Map.Entry<Integer, Line> entry : moved.entrySet()) {
+					if (entry.getKey() < lines.size()) {
+						lines.set(entry.getKey(), entry.getValue());
+
+						if (wordCounts != null) {
+							wordCounts.set(entry.getKey(), movedCounts.get(entry.getKey()));
+						}
+					}
+
+					dirtyLines.set(entry.getKey());
+				}
+
+				// Every position after the remaining lines is one of the moved ones.
+				while (lines.size() < size) {
+					lines.add(moved.get(lines.size()));
+
+					if (wordCounts != null) {
+						wordCounts.add(movedCounts.get(lines.size() - 1));
+					}
+				}
+
+				if (wordCounts == null && warmUp != null) {
+					warmUp.linesMoved();
+				}
+			}
+
+			if (snapshotLines != null) {
+				resizeSnapshotLines();
+
+				for (int key : rebuiltKeys) {
+					if (key < size) {
+						updateSnapshotLine(key);
+					}
+				}
+
+				for (int position : positions.keySet()) {
+					updateSnapshotLine(position);
+				}
+			}
+
+			if (journal != null) {
+				for (Operation operation : operations) {
+					switch (operation.getType()) {
+					case SWAP_LINES:
+						if (operation.getFirstLine() != operation.getSecondLine()) {
+							journal.swapLines(operation.getFirstLine(), operation.getSecondLine());
+						}
+
+						break;
+					case SWAP_WORDS:
+						journal.swapWords(operation.getFirstLine(), operation.getFirstWord(), operation.getSecondLine(), operation.getSecondWord());
+
+						break;
+					case ADD_EMPTY_LINE:
+						journal.addEmptyLine();
+
+						break;
+					case REMOVE_LAST_LINE:
+						journal.removeLastLine();
+
+						break;
+					}
+				}
+			}
+		} finally {
+			unlockContent();
+		}
+	}
+
+	/**
+	 * Checks a line index against the line count the content has at some point of a batch.
+	 * @param lineIndex The index of the line.
+	 * @param size The line count.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	private static void checkLineIndex(int lineIndex, int size) throws IndexOutOfBoundsException {
+		if (lineIndex < 0 || size <= lineIndex) {
+			throw new IndexOutOfBoundsException(lineIndex);
+		}
+	}
+
+	/**
+	 * Starts following the words of a line during a batch, unless already done. Each word initially refers to itself.
+	 * @param key The key of the line (see {@code applyBatch}).
+	 * @param initialSize The line count before the batch.
+	 * @param added The lines added during the batch.
+	 * @param touched The lines whose words are followed, by their keys.
+	 * @param sourceLines The key of the line of the word now at each of the words of each followed line.
+	 * @param sourceWords The index of the word now at each of the words of each followed line.
+	 * @return A non-null reference to the keys of the lines of the words now at each of the words of the line.
+	 */
+	private int[] touchWords(int key, int initialSize, List<Line> added, Map<Integer, Line> touched, Map<Integer, int[]> sourceLines, Map<Integer, int[]> sourceWords) {
+		int[] keys = sourceLines.get(key);
+
+		if (keys == null) {
+			Line line = key < initialSize ? line(key) : added.get(key - initialSize);
+
+			final int count = line.wordCount();
+
+			int[] words = new int[count];
+
+			keys = new int[count];
 
-		if (firstLine == secondLine) {
-			return;
+			for (int z = 0; z < count; ++z) {
+				keys[z] = key;
+				words[z] = z;
+			}
+
+			touched.put(key, line);
+			sourceLines.put(key, keys);
+			sourceWords.put(key, words);
 		}
 
-		try {
-			Line temp = lines.set(firstLine, lines.get(secondLine));
-			lines.set(secondLine, temp);
-		} catch (NullPointerException exception) {
-			throw new IllegalStateException(closedMessage);
+		return keys;
+	}
+
+	/**
+	 * Checks whether every word of a line is back in it's place after a batch.
+	 * @param key The key of the line (see {@code applyBatch}).
+	 * @param keys The keys of the lines of the words now at each of the words of the line.
+	 * @param words The indexes of the words now at each of the words of the line.
+	 * @return True when each word is the one which was there before. Otherwise, false.
+	 */
+	private static boolean isIdentity(int key, int[] keys, int[] words) {
+		for (int z = 0; z < keys.length; ++z) {
+			if (keys[z] != key || words[z] != z) {
+				return false;
+			}
 		}
+
+		return true;
 	}
 
 	/**
@@ -101,11 +1360,17 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when the indexes are out of bounds.
 	 */
 	public String getWord(int line, int word) throws IllegalStateException, IndexOutOfBoundsException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockLine(line);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		return lines.get(line).getWord(word);
+			return line(line).getWord(word);
+		} finally {
+			unlockLine(line);
+		}
 	}
 
 	/**
@@ -115,15 +1380,21 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
 	 */
 	public boolean isLineInBounds(int lineIndex) throws IllegalStateException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockStructure();
 
-		if (0 <= lineIndex && lineIndex < lines.size()) {
-			return true;
-		}
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		return false;
+			if (0 <= lineIndex && lineIndex < lines.size()) {
+				return true;
+			}
+
+			return false;
+		} finally {
+			unlockStructure();
+		}
 	}
 
 	/**
@@ -135,11 +1406,17 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
 	 */
 	public boolean isWordInBounds(int lineIndex, int wordIndex) throws IllegalStateException, IndexOutOfBoundsException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockLine(lineIndex);
 
-		return lines.get(lineIndex).isWordInBounds(wordIndex);
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			return line(lineIndex).isWordInBounds(wordIndex);
+		} finally {
+			unlockLine(lineIndex);
+		}
 	}
 
 	/**
@@ -150,11 +1427,17 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
 	 */
 	public boolean lineHasWords(int lineIndex) throws IllegalStateException, IndexOutOfBoundsException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockLine(lineIndex);
 
-		return lines.get(lineIndex).hasWords();
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			return line(lineIndex).hasWords();
+		} finally {
+			unlockLine(lineIndex);
+		}
 	}
 
 	/**
@@ -163,25 +1446,31 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
 	 */
 	public String getContentString() throws IllegalStateException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockContent();
 
-		StringBuilder content = new StringBuilder();
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		if (lines.size() != 0) {
-			content.append("1 || ");
-			content.append(lines.get(0).getLine());
-		}
+			StringBuilder content = new StringBuilder();
 
-		for (int z = 1; z < lines.size(); ++z) {
-			content.append('\n');
-			content.append(z + 1);
-			content.append(" || ");
-			content.append(lines.get(z).getLine());
-		}
+			if (lines.size() != 0) {
+				content.append("1 || ");
+				content.append(getLineString(0));
+			}
+
+			for (int z = 1; z < lines.size(); ++z) {
+				content.append('\n');
+				content.append(z + 1);
+				content.append(" || ");
+				content.append(getLineString(z));
+			}
 
-		return content.toString();
+			return content.toString();
+		} finally {
+			unlockContent();
+		}
 	}
 
 	/**
@@ -190,11 +1479,17 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
 	 */
 	public boolean isEmpty() throws IllegalStateException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockStructure();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		return lines.isEmpty();
+			return lines.isEmpty();
+		} finally {
+			unlockStructure();
+		}
 	}
 
 	/**
@@ -203,11 +1498,17 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
 	 */
 	public int lineCount() throws IllegalStateException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockStructure();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		return lines.size();
+			return lines.size();
+		} finally {
+			unlockStructure();
+		}
 	}
 
 	/**
@@ -218,11 +1519,17 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
 	 */
 	public boolean hasWordsOnLine(int lineIndex) throws IllegalStateException, IndexOutOfBoundsException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockLine(lineIndex);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		return lines.get(lineIndex).hasWords();
+			return line(lineIndex).hasWords();
+		} finally {
+			unlockLine(lineIndex);
+		}
 	}
 
 	/**
@@ -233,11 +1540,17 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
 	 */
 	public int wordCountOnLine(int lineIndex) throws IllegalStateException, IndexOutOfBoundsException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockLine(lineIndex);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		return lines.get(lineIndex).wordCount();
+			return line(lineIndex).wordCount();
+		} finally {
+			unlockLine(lineIndex);
+		}
 	}
 
 	/**
@@ -249,11 +1562,147 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
 	 */
 	public int wordCountOnLine(int lineIndex, int maxCount) throws IllegalStateException, IndexOutOfBoundsException {
+		lockLine(lineIndex);
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			return line(lineIndex).wordCount(maxCount);
+		} finally {
+			unlockLine(lineIndex);
+		}
+	}
+
+	/**
+	 * Checks whether the word counts of all lines are already counted, so {@code totalWordCount} and the other queries using them don't parse all lines.
+	 * @return True when the word counts are counted. Otherwise, false.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 */
+	public boolean hasWordCounts() throws IllegalStateException {
+		lockStructure();
+		lockBookkeeping();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			return wordCounts != null || (warmUp != null && warmUp.getWordCountIndex() != null);
+		} finally {
+			unlockBookkeeping();
+			unlockStructure();
+		}
+	}
+
+	/**
+	 * Gets the word count of the whole content.
+	 * All lines are parsed when this or any other method using the word counts of all lines is called for the first time,
+	 * after which the counts are kept up to date by the operations.
+	 * @return A positive integer representing the word count.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 */
+	public long totalWordCount() throws IllegalStateException {
+		lockWordCounts();
+
+		try {
+			return getWordCounts().total();
+		} finally {
+			unlockWordCounts();
+		}
+	}
+
+	/**
+	 * Gets the count of words on the lines before the given one. It is also the index in the whole content of the line's first word, if any.
+	 * @param lineIndex Index of the line, which can also be the line count.
+	 * @return A positive integer representing the word count.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	public long wordCountBeforeLine(int lineIndex) throws IllegalStateException, IndexOutOfBoundsException {
+		lockWordCounts();
+
+		try {
+			return getWordCounts().wordsBefore(lineIndex);
+		} finally {
+			unlockWordCounts();
+		}
+	}
+
+	/**
+	 * Finds the line containing the given word of the whole content.
+	 * The index of the word on the line is then {@code wordIndex - wordCountBeforeLine(line)}.
+	 * @param wordIndex Index of the word in the whole content.
+	 * @return Index of the line containing the word.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the word index is out of bounds.
+	 */
+	public int lineOfWord(long wordIndex) throws IllegalStateException, IndexOutOfBoundsException {
+		lockWordCounts();
+
+		try {
+			return getWordCounts().lineOf(wordIndex);
+		} finally {
+			unlockWordCounts();
+		}
+	}
+
+	/**
+	 * Finds the first line with at least one word, starting at the given line.
+	 * @param lineIndex Index of the line at which the search begins, which can also be the line count.
+	 * @return Index of the found line, or -1 when no line from the given one on has any words.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	public int nextLineWithWords(int lineIndex) throws IllegalStateException, IndexOutOfBoundsException {
+		lockWordCounts();
+
+		try {
+			return getWordCounts().nextLineWithWords(lineIndex);
+		} finally {
+			unlockWordCounts();
+		}
+	}
+
+	/**
+	 * Gets the word counts of all lines, counting them first if not already done.
+	 * When the session is concurrent, this is called either while the write lock is held or through {@code lockWordCounts}.
+	 * @return A non-null reference to the word counts.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 */
+	private WordCountIndex getWordCounts() throws IllegalStateException {
 		if (lines == null) {
 			throw new IllegalStateException();
 		}
 
-		return lines.get(lineIndex).wordCount(maxCount);
+		if (wordCounts == null && warmUp != null) {
+			wordCounts = warmUp.getWordCountIndex();
+		}
+
+		if (wordCounts == null && lines instanceof MappedLineList) {
+			// Decode the untouched lines without keeping them in the list.
+			wordCounts = new WordCountIndex(((MappedLineList) lines).lines().mapToInt((Line line) -> {
+				line.setTokenizer(tokenizer);
+
+				return line.countWords();
+			}).toArray());
+		}
+
+		if (wordCounts == null) {
+			int[] counts = new int[lines.size()];
+
+			for (int z = 0; z < counts.length; ++z) {
+				final int count = warmUp == null ? -1 : warmUp.getWordCount(z, lines.get(z));
+
+				// Lines which were parsed in the background need not be touched.
+				counts[z] = count != -1 ? count : line(z).countWords();
+			}
+
+			wordCounts = new WordCountIndex(counts);
+		}
+
+		return wordCounts;
 	}
 
 	/**
@@ -261,11 +1710,30 @@ public final class AppCore implements AutoCloseable {
 	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
 	 */
 	public void addEmptyLine() throws IllegalStateException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockContent();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			lines.add(Line.empty());
+
+			dirtyLines.set(lines.size() - 1);
+			resizeSnapshotLines();
 
-		lines.add(Line.empty());
+			if (wordCounts != null) {
+				wordCounts.add(0);
+			} else if (warmUp != null) {
+				warmUp.linesMoved();
+			}
+
+			if (journal != null) {
+				journal.addEmptyLine();
+			}
+		} finally {
+			unlockContent();
+		}
 	}
 
 	/**
@@ -275,15 +1743,30 @@ public final class AppCore implements AutoCloseable {
 	 * @apiNote It treats the case where there are no lines as if there was and it was not empty, therefore returning false.
 	 */
 	public boolean isLastLineEmpty() throws IllegalStateException {
-		if (lines == null) {
-			throw new IllegalStateException();
-		}
+		lockReading();
 
-		if (lines.size() == 0) {
-			return false;
-		}
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
 
-		return lines.get(lines.size() - 1).isEmpty();
+			if (lines.size() == 0) {
+				return false;
+			}
+
+			final int lastLine = lines.size() - 1;
+
+			// The line stays the last one while the line count is locked, and it's stripe keeps it from being changed.
+			lockStripe(lastLine);
+
+			try {
+				return lines.get(lastLine).isEmpty();
+			} finally {
+				unlockStripe(lastLine);
+			}
+		} finally {
+			unlockReading();
+		}
 	}
 
 	/**
@@ -293,42 +1776,176 @@ public final class AppCore implements AutoCloseable {
 	 * @apiNote It will remove the last line no matter whether it is empty or not so it is recommended to first check via {@code isLastLineEmpty}.
 	 */
 	public void removeLastLine() throws IllegalStateException, NoSuchElementException {
-		if (lines == null) {
-			throw new IllegalStateException();
+		lockContent();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			if (lines.isEmpty()) {
+				throw new NoSuchElementException("Cannot remove any lines because there aren't any.");
+			}
+
+			lines.remove(lines.size() - 1);
+
+			dirtyLines.clear(lines.size());
+			resizeSnapshotLines();
+
+			if (wordCounts != null) {
+				wordCounts.removeLast();
+			} else if (warmUp != null) {
+				warmUp.linesMoved();
+			}
+
+			if (journal != null) {
+				journal.removeLastLine();
+			}
+		} finally {
+			unlockContent();
 		}
+	}
 
-		if (lines.isEmpty()) {
-			throw new NoSuchElementException("Cannot remove any lines because there aren't any.");
+	/**
+	 * Gets the content of the given line without keeping it decoded, in case the file is mapped.
+	 * @param lineIndex Index of the line.
+	 * @return A non-null reference to a string containing the line.
+	 */
+	private String getLineString(int lineIndex) {
+		if (lines instanceof MappedLineList) {
+			return ((MappedLineList) lines).getLineString(lineIndex);
 		}
 
-		lines.remove(lines.size() - 1);
+		return lines.get(lineIndex).getLine();
 	}
 
-	@Override
-	public void close() throws FileNotFoundException, SecurityException, IOException {
-		if (lines == null) {
+	/**
+	 * Takes a snapshot of the current content, which is never changed and can be read from any thread without locks (see {@link ContentSnapshot}).
+	 * The first snapshot collects the contents of all lines into a persistent vector, which costs linear time and, when the file is mapped,
+	 * decodes every line once and keeps it's content. From then on the operations keep the vector up to date by copying only the few nodes
+	 * on the path to each changed line, while taking another snapshot costs constant time.
+	 * @return A non-null reference to the new snapshot.
+	 * @throws IllegalStateException Thrown when the session is closed (through {@code close}) and the new content is written down.
+	 */
+	public ContentSnapshot snapshot() throws IllegalStateException {
+		lockContent();
+
+		try {
+			if (lines == null) {
+				throw new IllegalStateException();
+			}
+
+			if (snapshotLines == null) {
+				LineVector vector = new LineVector();
+
+				if (lines instanceof MappedLineList) {
+					// Decode the untouched lines without keeping them in the list.
+					((MappedLineList) lines).lines().forEachOrdered(line -> vector.add(line.getImmutableContent()));
+				} else {
+					for (Line line : lines) {
+						vector.add(line.getImmutableContent());
+					}
+				}
+
+				snapshotLines = vector;
+			}
+
+			return snapshotLines.snapshot();
+		} finally {
+			unlockContent();
+		}
+	}
+
+	/**
+	 * Updates the content of a line shared with the snapshots after the line was changed or moved, if any snapshot was taken.
+	 * @param lineIndex Index of the line.
+	 */
+	private void updateSnapshotLine(int lineIndex) {
+		if (snapshotLines != null) {
+			snapshotLines.set(lineIndex, lines.get(lineIndex).getImmutableContent());
+		}
+	}
+
+	/**
+	 * Adds or removes the lines shared with the snapshots at the end after lines were added or removed, if any snapshot was taken.
+	 */
+	private void resizeSnapshotLines() {
+		if (snapshotLines == null) {
 			return;
 		}
 
-		OutputStream file = null;
+		while (lines.size() < snapshotLines.size()) {
+			snapshotLines.removeLast();
+		}
 
-		try {
-			file = new FileOutputStream(filePath);
+		while (snapshotLines.size() < lines.size()) {
+			snapshotLines.add(lines.get(snapshotLines.size()).getImmutableContent());
+		}
+	}
 
-			if (lines.size() != 0) {
-				file.write(lines.get(0).getLine().getBytes());
+	/**
+	 * Writes down the current content and ends the session.
+	 * Only the lines which were changed are written, while the rest of the file keeps it's original bytes
+	 * (e.g.: carriage return (CR) characters on lines which weren't touched).
+	 * All lines are encoded again when the file was changed by another program in the meantime.
+	 * The journal of the session, if there is such, is deleted once the content is written down.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when the content couldn't be written.
+	 */
+	@Override
+	public void close() throws FileNotFoundException, SecurityException, IOException {
+		lockContent();
+
+		try {
+			if (lines == null) {
+				return;
 			}
 
-			for (int z = 1; z < lines.size(); ++z) {
-				file.write('\n');
-				file.write(lines.get(z).getLine().getBytes());
+			boolean written = false;
+
+			if (warmUp != null) {
+				warmUp.close();
+
+				warmUp = null;
 			}
-		} finally {
-			this.lines = null;
 
-			if (file != null) {
-				file.close();
+			try {
+				Path path = Paths.get(filePath);
+				LineIndex index = sourceIndex;
+
+				// The same checks as when replaying a journal.
+				if (index != null && !(Files.exists(path) && Files.size(path) == index.getFileSize()
+						&& Files.getLastModifiedTime(path).to(TimeUnit.NANOSECONDS) == sourceModified)) {
+					index = null;
+				}
+
+				new LineWriter(filePath, index, Charset.defaultCharset()).write(lines, dirtyLines);
+
+				written = true;
+			} finally {
+				List<Line> lines = this.lines;
+				OperationJournal journal = this.journal;
+
+				this.lines = null;
+				this.sourceIndex = null;
+				this.journal = null;
+				this.wordCounts = null;
+				this.snapshotLines = null;
+
+				try {
+					if (journal != null) {
+						// Keep the journal when the content couldn't be written, so the operations are replayed next time.
+						journal.close(written);
+					}
+				} finally {
+					if (lines instanceof MappedLineList) {
+						((MappedLineList) lines).close();
+					}
+				}
 			}
+		} finally {
+			unlockContent();
 		}
 	}
 }
@@ -0,0 +1,87 @@
+package app.core;
+
+/**
+ * Represents the content of a session (see {@link AppCore}) at the time the snapshot was taken (see {@link AppCore#snapshot}).
+ * The snapshot is never changed, so it can be read from any thread without locks while the session goes on changing the content.
+ * It shares the contents of the lines with the session instead of copying them, and only the parts of the session's vector which
+ * are changed later are copied (see {@link LineVector}).
+ */
+public final class ContentSnapshot {
+	private final LineVector.Node root;
+	private final int size;
+	private final int shift;
+
+	/**
+	 * Creates new instance of the class.
+	 * @param root The root of the tree of the lines, which is never changed anymore.
+	 * @param size The count of lines.
+	 * @param shift The count of bits of an index used by the levels below the root.
+	 */
+	ContentSnapshot(LineVector.Node root, int size, int shift) {
+		super();
+
+		this.root = root;
+		this.size = size;
+		this.shift = shift;
+	}
+
+	/**
+	 * Gets the line count of the content.
+	 * @return A positive integer representing the line count.
+	 */
+	public int lineCount() {
+		return size;
+	}
+
+	/**
+	 * Checks whether there are any lines. This is equivalent to {@code lineCount() == 0}.
+	 * @return True when there are no lines. Otherwise, false.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Gets the content of a line without creating a string for it.
+	 * @param lineIndex Index of the line.
+	 * @return A non-null reference to the content, which is never changed.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	public CharSequence getLineContent(int lineIndex) throws IndexOutOfBoundsException {
+		if (lineIndex < 0 || size <= lineIndex) {
+			throw new IndexOutOfBoundsException(lineIndex);
+		}
+
+		return LineVector.get(root, shift, lineIndex);
+	}
+
+	/**
+	 * Creates a string containing a line.
+	 * @param lineIndex Index of the line.
+	 * @return A non-null reference to the string.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	public String getLine(int lineIndex) throws IndexOutOfBoundsException {
+		return getLineContent(lineIndex).toString();
+	}
+
+	/**
+	 * Creates a new formatted string containing the content, the same as {@link AppCore#getContentString} does.
+	 * @return A non-null string containing the content.
+	 */
+	public String getContentString() {
+		StringBuilder content = new StringBuilder();
+
+		for (int z = 0; z < size; ++z) {
+			if (z != 0) {
+				content.append('\n');
+			}
+
+			content.append(z + 1);
+			content.append(" || ");
+			content.append(LineVector.get(root, shift, z));
+		}
+
+		return content.toString();
+	}
+}
@@ -0,0 +1,18 @@
+package app.core;
+
+/**
+ * Represents an order in which the lines of a session (see {@link AppCore#sortLines}) can be sorted.
+ * Sorting is stable, so lines which are equal by the order keep their order.
+ */
+public enum LineOrder {
+	/**
+	 * Sorts the lines by their content lexicographically, the same as {@link String#compareTo} orders strings.
+	 */
+	CONTENT,
+
+	/**
+	 * Sorts the lines by their word counts, from the lowest to the highest one.
+	 * All lines are parsed first, unless already done (see {@link AppCore#totalWordCount}).
+	 */
+	WORD_COUNT,
+}
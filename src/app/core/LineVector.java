@@ -0,0 +1,168 @@
+package app.core;
+
+/**
+ * Represents the contents of all lines of a session (see {@link AppCore}) kept in a persistent vector, which snapshots of the content share
+ * (see {@link ContentSnapshot}). The contents are the leaves of a tree whose nodes have up to 32 children each, so reaching any of them
+ * takes a few steps and changing one copies only the nodes on it's path.
+ * Taking a snapshot only starts a new generation of the vector. Nodes of the current generation are not shared with any snapshot yet,
+ * so they are changed in place, while the shared ones are copied the first time they are changed and stay the same for the snapshots.
+ * Lines can only be added or removed at the end, the same as in the session.
+ */
+final class LineVector {
+	private static final int bits;
+	private static final int width;
+	private static final int mask;
+
+	private Node root;
+	private int size;
+
+	// The count of bits of an index used by the levels below the root.
+	private int shift;
+
+	// Identifies the nodes created since the last snapshot was taken.
+	private Object generation;
+
+	static {
+		bits = 5;
+		width = 1 << bits;
+		mask = width - 1;
+	}
+
+	/**
+	 * Creates an empty vector.
+	 */
+	LineVector() {
+		super();
+
+		generation = new Object();
+		root = new Node(generation, new Object[width]);
+		size = 0;
+		shift = 0;
+	}
+
+	/**
+	 * Gets the count of lines.
+	 * @return A positive integer representing the line count.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Replaces the content of a line.
+	 * @param index Index of the line.
+	 * @param content The new content, which must never be changed.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	void set(int index, CharSequence content) throws IndexOutOfBoundsException {
+		if (index < 0 || size <= index) {
+			throw new IndexOutOfBoundsException(index);
+		}
+
+		store(index, content);
+	}
+
+	/**
+	 * Adds a line to the end, adding a level above the root when the tree is full.
+	 * @param content The content of the line, which must never be changed.
+	 */
+	void add(CharSequence content) {
+		if (size == 1 << (shift + bits)) {
+			Object[] slots = new Object[width];
+
+			slots[0] = root;
+
+			root = new Node(generation, slots);
+			shift += bits;
+		}
+
+		store(size++, content);
+	}
+
+	/**
+	 * Removes the last line. The nodes which became empty are kept for the lines added later.
+	 */
+	void removeLast() {
+		// Not needed anymore.
+		store(--size, null);
+	}
+
+	/**
+	 * Stores the content of a line, making the nodes on it's path changeable and creating the missing ones.
+	 * @param index Index of the line.
+	 * @param content The content of the line.
+	 */
+	private void store(int index, CharSequence content) {
+		root = changeable(root);
+
+		Node node = root;
+
+		for (int level = shift; level > 0; level -= bits) {
+			final int slot = (index >>> level) & mask;
+			final Node child = (Node) node.slots[slot];
+
+			node.slots[slot] = child == null ? new Node(generation, new Object[width]) : changeable(child);
+			node = (Node) node.slots[slot];
+		}
+
+		node.slots[index & mask] = content;
+	}
+
+	/**
+	 * Gets a node which can be changed in place instead of the given one, copying it when it is shared with a snapshot.
+	 * @param node The node.
+	 * @return A non-null reference to the given node or it's copy.
+	 */
+	private Node changeable(Node node) {
+		return node.generation == generation ? node : new Node(generation, node.slots.clone());
+	}
+
+	/**
+	 * Takes a snapshot of the current contents. Nothing is copied, but all nodes become shared with the snapshot.
+	 * @return A non-null reference to the new snapshot.
+	 */
+	ContentSnapshot snapshot() {
+		ContentSnapshot snapshot = new ContentSnapshot(root, size, shift);
+
+		generation = new Object();
+
+		return snapshot;
+	}
+
+	/**
+	 * Gets the content of a line from a tree.
+	 * @param root The root of the tree.
+	 * @param shift The count of bits of an index used by the levels below the root.
+	 * @param index Index of the line, which must be in bounds.
+	 * @return A non-null reference to the content.
+	 */
+	static CharSequence get(Node root, int shift, int index) {
+		Node node = root;
+
+		for (int level = shift; level > 0; level -= bits) {
+			node = (Node) node.slots[(index >>> level) & mask];
+		}
+
+		return (CharSequence) node.slots[index & mask];
+	}
+
+	/**
+	 * Represents a node of the tree, whose slots hold either it's children or, at the lowest level, the contents of the lines.
+	 */
+	static final class Node {
+		private final Object generation;
+		private final Object[] slots;
+
+		/**
+		 * Creates new instance of the class.
+		 * @param generation The generation during which the node was created.
+		 * @param slots The slots of the node.
+		 */
+		Node(Object generation, Object[] slots) {
+			super();
+
+			this.generation = generation;
+			this.slots = slots;
+		}
+	}
+}
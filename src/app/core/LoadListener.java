@@ -0,0 +1,19 @@
+package app.core;
+
+import java.util.List;
+
+import app.core.utils.Line;
+
+/**
+ * Represents a listener which is notified about the progress of loading a session's file (see {@link AppCore}).
+ */
+@FunctionalInterface
+public interface LoadListener {
+	/**
+	 * Called from the loading thread every time a batch of lines is loaded.
+	 * @param batch An unmodifiable view of the lines which were just loaded, in order. It is only valid during the call.
+	 * @param bytesRead The count of bytes read from the file so far.
+	 * @param totalBytes The size of the file in bytes.
+	 */
+	void linesLoaded(List<Line> batch, long bytesRead, long totalBytes);
+}
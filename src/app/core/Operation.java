@@ -0,0 +1,156 @@
+package app.core;
+
+/**
+ * Represents a single operation on the content of a session, so a list of them can be performed at once (see {@link AppCore#applyBatch}).
+ * The indexes refer to the content as it is after all previous operations of the list, the same as when they are performed one by one.
+ */
+public final class Operation {
+	/**
+	 * Represents the kind of an operation, which tells which of it's indexes are used.
+	 */
+	public enum Type {
+		/**
+		 * Swaps two lines (see {@link AppCore#swapLines}). Uses the first and the second line index.
+		 */
+		SWAP_LINES,
+
+		/**
+		 * Swaps two words (see {@link AppCore#swapWords}). Uses all four indexes.
+		 */
+		SWAP_WORDS,
+
+		/**
+		 * Adds an empty line to the end of the content (see {@link AppCore#addEmptyLine}). Uses no indexes.
+		 */
+		ADD_EMPTY_LINE,
+
+		/**
+		 * Removes the last line of the content (see {@link AppCore#removeLastLine}). Uses no indexes.
+		 */
+		REMOVE_LAST_LINE,
+	}
+
+	private static final Operation addEmptyLine;
+	private static final Operation removeLastLine;
+
+	private final Type type;
+	private final int firstLine;
+	private final int firstWord;
+	private final int secondLine;
+	private final int secondWord;
+
+	static {
+		addEmptyLine = new Operation(Type.ADD_EMPTY_LINE, -1, -1, -1, -1);
+		removeLastLine = new Operation(Type.REMOVE_LAST_LINE, -1, -1, -1, -1);
+	}
+
+	/**
+	 * Creates an operation. Indexes which are not used by the kind of the operation are -1.
+	 * @param type The kind of the operation.
+	 * @param firstLine The index of the first line.
+	 * @param firstWord The index of the word on the first line.
+	 * @param secondLine The index of the second line.
+	 * @param secondWord The index of the word on the second line.
+	 */
+	private Operation(Type type, int firstLine, int firstWord, int secondLine, int secondWord) {
+		super();
+
+		this.type = type;
+		this.firstLine = firstLine;
+		this.firstWord = firstWord;
+		this.secondLine = secondLine;
+		this.secondWord = secondWord;
+	}
+
+	/**
+	 * Creates a swap of two lines.
+	 * @param firstLine The index of the first line.
+	 * @param secondLine The index of the second line.
+	 * @return A non-null reference to the operation.
+	 */
+	public static Operation swapLines(int firstLine, int secondLine) {
+		return new Operation(Type.SWAP_LINES, firstLine, -1, secondLine, -1);
+	}
+
+	/**
+	 * Creates a swap of two words on the same line or two different lines.
+	 * @param firstLine The index of the first line.
+	 * @param firstWord The index of the word on the first line.
+	 * @param secondLine The index of the second line.
+	 * @param secondWord The index of the word on the second line.
+	 * @return A non-null reference to the operation.
+	 */
+	public static Operation swapWords(int firstLine, int firstWord, int secondLine, int secondWord) {
+		return new Operation(Type.SWAP_WORDS, firstLine, firstWord, secondLine, secondWord);
+	}
+
+	/**
+	 * Gets the addition of an empty line to the end of the content.
+	 * @return A non-null reference to the shared operation.
+	 */
+	public static Operation addEmptyLine() {
+		return addEmptyLine;
+	}
+
+	/**
+	 * Gets the removal of the last line of the content.
+	 * @return A non-null reference to the shared operation.
+	 */
+	public static Operation removeLastLine() {
+		return removeLastLine;
+	}
+
+	/**
+	 * Gets the kind of the operation.
+	 * @return A non-null reference to the kind.
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Gets the index of the first line.
+	 * @return The index of the line or -1 when the operation doesn't use it.
+	 */
+	public int getFirstLine() {
+		return firstLine;
+	}
+
+	/**
+	 * Gets the index of the word on the first line.
+	 * @return The index of the word or -1 when the operation doesn't use it.
+	 */
+	public int getFirstWord() {
+		return firstWord;
+	}
+
+	/**
+	 * Gets the index of the second line.
+	 * @return The index of the line or -1 when the operation doesn't use it.
+	 */
+	public int getSecondLine() {
+		return secondLine;
+	}
+
+	/**
+	 * Gets the index of the word on the second line.
+	 * @return The index of the word or -1 when the operation doesn't use it.
+	 */
+	public int getSecondWord() {
+		return secondWord;
+	}
+
+	@Override
+	public String toString() {
+		switch (type) {
+		case SWAP_LINES:
+			return String.format("swap lines %d and %d", firstLine, secondLine);
+		case SWAP_WORDS:
+			return String.format("swap word %d on line %d and word %d on line %d", firstWord, firstLine, secondWord, secondLine);
+		case ADD_EMPTY_LINE:
+			return "add empty line";
+		default:
+			return "remove last line";
+		}
+	}
+}
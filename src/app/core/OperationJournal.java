@@ -0,0 +1,443 @@
+package app.core;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import app.core.utils.WordOrder;
+
+/**
+ * Represents an append-only journal of the operations performed on a session (see {@link AppCore}).
+ * The journal is kept in a file next to the session's file, whose name ends with {@code .journal}.
+ * It begins with a header identifying the version of the file the operations were performed on, followed by one small binary record per operation.
+ * Records are collected in memory and written down periodically, so many operations share a single sync of the journal (group commit).
+ */
+final class OperationJournal implements AutoCloseable {
+	private static final int magic;
+	private static final int headerSize;
+	private static final int initialBufferSize;
+	private static final long commitInterval;
+
+	// Operation codes. Zero is not used, so a zero-filled tail left by a crash ends the journal.
+	private static final byte swapLinesCode;
+	private static final byte swapWordsCode;
+	private static final byte addEmptyLineCode;
+	private static final byte removeLastLineCode;
+	private static final byte permuteLinesCode;
+	private static final byte reverseLinesCode;
+	private static final byte rotateLinesCode;
+	private static final byte shuffleLinesCode;
+	private static final byte sortLinesCode;
+	private static final byte permuteWordsCode;
+	private static final byte reverseWordsCode;
+	private static final byte rotateWordsCode;
+	private static final byte sortWordsCode;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final ScheduledExecutorService committer;
+
+	// Guarded by "this".
+	private ByteBuffer pending;
+	private IOException failure;
+
+	static {
+		magic = 0x4A524E4C;
+		headerSize = Integer.BYTES + Long.BYTES * 2;
+		initialBufferSize = 1 << 10;
+		commitInterval = 10;
+
+		swapLinesCode = 1;
+		swapWordsCode = 2;
+		addEmptyLineCode = 3;
+		removeLastLineCode = 4;
+		permuteLinesCode = 5;
+		reverseLinesCode = 6;
+		rotateLinesCode = 7;
+		shuffleLinesCode = 8;
+		sortLinesCode = 9;
+		permuteWordsCode = 10;
+		reverseWordsCode = 11;
+		rotateWordsCode = 12;
+		sortWordsCode = 13;
+	}
+
+	/**
+	 * Opens the journal of the given file, creating it when it doesn't exist.
+	 * A journal which was written for another version of the file (e.g.: the file was saved or changed since) is cleared.
+	 * @param filePath Absolute or relative path to the session's file.
+	 * @param fileSize The size of the session's file at the time it was loaded.
+	 * @param lastModified The time the session's file was last modified at, in nanoseconds since the epoch.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when the journal couldn't be opened or read.
+	 */
+	OperationJournal(String filePath, long fileSize, long lastModified) throws SecurityException, IOException {
+		super();
+
+		path = Paths.get(filePath + ".journal");
+		channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		try {
+			ByteBuffer header = ByteBuffer.allocate(headerSize);
+
+			while (header.hasRemaining() && channel.read(header, header.position()) != -1) {
+				// Keep reading until the whole header is read.
+			}
+
+			header.flip();
+
+			if (header.remaining() != headerSize || header.getInt() != magic || header.getLong() != fileSize || header.getLong() != lastModified) {
+				header.clear();
+				header.putInt(magic).putLong(fileSize).putLong(lastModified).flip();
+
+				channel.truncate(0);
+
+				while (header.hasRemaining()) {
+					channel.write(header, header.position());
+				}
+
+				channel.force(true);
+			}
+		} catch (IOException | RuntimeException exception) {
+			channel.close();
+
+			throw exception;
+		}
+
+		pending = ByteBuffer.allocate(initialBufferSize);
+		failure = null;
+
+		committer = Executors.newSingleThreadScheduledExecutor((Runnable task) -> {
+			Thread thread = new Thread(task, "journal-committer");
+
+			thread.setDaemon(true);
+
+			return thread;
+		});
+	}
+
+	/**
+	 * Performs the operations recorded in the journal on the given session and starts recording new ones.
+	 * Reading stops at the first record which is incomplete or cannot be performed, and the journal is cut off there.
+	 * @param core The session, which must not record it's operations in this journal yet.
+	 * @throws IOException Thrown when the journal couldn't be read.
+	 */
+	void replay(AppCore core) throws IOException {
+		ByteBuffer records = ByteBuffer.allocate((int) Math.max(0, channel.size() - headerSize));
+
+		while (records.hasRemaining() && channel.read(records, headerSize + records.position()) != -1) {
+			// Keep reading until all records are read.
+		}
+
+		records.flip();
+
+		int valid = 0;
+
+		try {
+			while (records.hasRemaining()) {
+				final byte code = records.get();
+
+				if (code == swapLinesCode && records.remaining() >= Integer.BYTES * 2) {
+					core.swapLines(records.getInt(), records.getInt());
+				} else if (code == swapWordsCode && records.remaining() >= Integer.BYTES * 4) {
+					core.swapWords(records.getInt(), records.getInt(), records.getInt(), records.getInt());
+				} else if (code == addEmptyLineCode) {
+					core.addEmptyLine();
+				} else if (code == removeLastLineCode) {
+					core.removeLastLine();
+				} else if (code == permuteLinesCode && records.remaining() >= Integer.BYTES
+						&& records.remaining() - Integer.BYTES >= (long) records.getInt(records.position()) * Integer.BYTES) {
+					core.permuteLines(readInts(records));
+				} else if (code == reverseLinesCode && records.remaining() >= Integer.BYTES * 2) {
+					core.reverseLines(records.getInt(), records.getInt());
+				} else if (code == rotateLinesCode && records.remaining() >= Integer.BYTES * 3) {
+					core.rotateLines(records.getInt(), records.getInt(), records.getInt());
+				} else if (code == shuffleLinesCode && records.remaining() >= Long.BYTES) {
+					core.shuffleLines(records.getLong());
+				} else if (code == sortLinesCode && records.remaining() >= Integer.BYTES) {
+					core.sortLines(LineOrder.values()[records.getInt()]);
+				} else if (code == permuteWordsCode && records.remaining() >= Integer.BYTES * 2
+						&& records.remaining() - Integer.BYTES * 2 >= (long) records.getInt(records.position() + Integer.BYTES) * Integer.BYTES) {
+					final int line = records.getInt();
+
+					core.permuteWords(line, readInts(records));
+				} else if (code == reverseWordsCode && records.remaining() >= Integer.BYTES) {
+					core.reverseWords(records.getInt());
+				} else if (code == rotateWordsCode && records.remaining() >= Integer.BYTES * 2) {
+					core.rotateWords(records.getInt(), records.getInt());
+				} else if (code == sortWordsCode && records.remaining() >= Integer.BYTES * 2) {
+					core.sortWords(records.getInt(), WordOrder.values()[records.getInt()]);
+				} else {
+					break;
+				}
+
+				valid = records.position();
+			}
+		} catch (RuntimeException exception) {
+			// The record doesn't match the file, so it and everything after it is dropped.
+		}
+
+		channel.truncate(headerSize + valid);
+		channel.position(headerSize + valid);
+
+		committer.scheduleWithFixedDelay(this::commitQuietly, commitInterval, commitInterval, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Reads an array of integers preceded by it's length, whose whole record was already checked to be complete.
+	 * @param records The records, positioned at the length.
+	 * @return A non-null reference to the array.
+	 * @throws NegativeArraySizeException Thrown when the length is negative, in which case the record is not valid.
+	 */
+	private static int[] readInts(ByteBuffer records) throws NegativeArraySizeException {
+		int[] array = new int[records.getInt()];
+
+		records.asIntBuffer().get(array);
+		records.position(records.position() + array.length * Integer.BYTES);
+
+		return array;
+	}
+
+	/**
+	 * Records a swap of two lines.
+	 * @param firstLine The index of the first line.
+	 * @param secondLine The index of the second line.
+	 */
+	void swapLines(int firstLine, int secondLine) {
+		record(swapLinesCode, firstLine, secondLine);
+	}
+
+	/**
+	 * Records a swap of two words.
+	 * @param firstLineIndex The index of the first line.
+	 * @param firstWordIndex The index of the word on the first line.
+	 * @param secondLineIndex The index of the second line.
+	 * @param secondWordIndex The index of the word on the second line.
+	 */
+	void swapWords(int firstLineIndex, int firstWordIndex, int secondLineIndex, int secondWordIndex) {
+		record(swapWordsCode, firstLineIndex, firstWordIndex, secondLineIndex, secondWordIndex);
+	}
+
+	/**
+	 * Records the addition of an empty line to the end of the content.
+	 */
+	void addEmptyLine() {
+		record(addEmptyLineCode);
+	}
+
+	/**
+	 * Records the removal of the last line.
+	 */
+	void removeLastLine() {
+		record(removeLastLineCode);
+	}
+
+	/**
+	 * Records a permutation of all lines.
+	 * @param permutation For each index, the index of the line which was moved to it.
+	 */
+	void permuteLines(int[] permutation) {
+		int[] arguments = new int[permutation.length + 1];
+
+		// The length comes first, so the record can be read back.
+		arguments[0] = permutation.length;
+		System.arraycopy(permutation, 0, arguments, 1, permutation.length);
+
+		record(permuteLinesCode, arguments);
+	}
+
+	/**
+	 * Records a permutation of all words of a line.
+	 * @param line The index of the line.
+	 * @param order For each word index, the index of the word which was moved to it.
+	 */
+	void permuteWords(int line, int[] order) {
+		int[] arguments = new int[order.length + 2];
+
+		arguments[0] = line;
+		arguments[1] = order.length;
+		System.arraycopy(order, 0, arguments, 2, order.length);
+
+		record(permuteWordsCode, arguments);
+	}
+
+	/**
+	 * Records a reversal of the words of a line.
+	 * @param line The index of the line.
+	 */
+	void reverseWords(int line) {
+		record(reverseWordsCode, line);
+	}
+
+	/**
+	 * Records a rotation of the words of a line.
+	 * @param line The index of the line.
+	 * @param distance The distance by which the words were moved.
+	 */
+	void rotateWords(int line, int distance) {
+		record(rotateWordsCode, line, distance);
+	}
+
+	/**
+	 * Records a sort of the words of a line, which is stable, so sorting the same words again gives the same order.
+	 * @param line The index of the line.
+	 * @param order The order.
+	 */
+	void sortWords(int line, WordOrder order) {
+		record(sortWordsCode, line, order.ordinal());
+	}
+
+	/**
+	 * Records a reversal of a range of lines.
+	 * @param from The index of the first line of the range.
+	 * @param to The index just after the last line of the range.
+	 */
+	void reverseLines(int from, int to) {
+		record(reverseLinesCode, from, to);
+	}
+
+	/**
+	 * Records a rotation of a range of lines.
+	 * @param from The index of the first line of the range.
+	 * @param to The index just after the last line of the range.
+	 * @param distance The distance by which the lines were moved.
+	 */
+	void rotateLines(int from, int to, int distance) {
+		record(rotateLinesCode, from, to, distance);
+	}
+
+	/**
+	 * Records a shuffle of all lines, which is repeated with the same seed.
+	 * @param seed The seed of the random number generator.
+	 */
+	void shuffleLines(long seed) {
+		// Written in the same byte order as it is read back as a long.
+		record(shuffleLinesCode, (int) (seed >>> Integer.SIZE), (int) seed);
+	}
+
+	/**
+	 * Records a sort of all lines, which is stable, so sorting the same lines again gives the same order.
+	 * @param order The order.
+	 */
+	void sortLines(LineOrder order) {
+		record(sortLinesCode, order.ordinal());
+	}
+
+	/**
+	 * Appends a record to the ones which are not written down yet.
+	 * @param code The operation code.
+	 * @param arguments The arguments of the operation.
+	 */
+	private synchronized void record(byte code, int... arguments) {
+		final int size = 1 + Integer.BYTES * arguments.length;
+
+		if (pending.remaining() < size) {
+			ByteBuffer grown = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + size));
+
+			pending.flip();
+			grown.put(pending);
+
+			pending = grown;
+		}
+
+		pending.put(code);
+
+		for (int argument : arguments) {
+			pending.putInt(argument);
+		}
+	}
+
+	/**
+	 * Writes down and syncs the records collected so far.
+	 * @throws IOException Thrown when the records couldn't be written or synced.
+	 */
+	private void commit() throws IOException {
+		ByteBuffer records;
+
+		synchronized (this) {
+			if (failure != null) {
+				throw failure;
+			}
+
+			if (pending.position() == 0) {
+				return;
+			}
+
+			records = pending;
+
+			// Operations keep being recorded while the previous records are written.
+			pending = ByteBuffer.allocate(Math.max(initialBufferSize, records.capacity() >> 1));
+		}
+
+		records.flip();
+
+		try {
+			while (records.hasRemaining()) {
+				channel.write(records);
+			}
+
+			channel.force(false);
+		} catch (IOException exception) {
+			synchronized (this) {
+				failure = exception;
+			}
+
+			throw exception;
+		}
+	}
+
+	/**
+	 * Same as {@code commit}, but the failure is only kept to be reported when the journal is closed.
+	 */
+	private void commitQuietly() {
+		try {
+			commit();
+		} catch (IOException exception) {
+			// Already kept in "failure".
+		}
+	}
+
+	/**
+	 * Stops recording and writes down the remaining records. This is equivalent to {@code close(false)}.
+	 * @throws IOException Thrown when any of the records couldn't be written.
+	 */
+	@Override
+	public void close() throws IOException {
+		close(false);
+	}
+
+	/**
+	 * Stops recording and either writes down the remaining records or deletes the journal.
+	 * @param discard Whether the journal is no longer needed because the operations were written to the session's file.
+	 * @throws IOException Thrown when any of the records couldn't be written or the journal couldn't be deleted.
+	 */
+	void close(boolean discard) throws IOException {
+		committer.shutdown();
+
+		try {
+			// Wait for a commit which might be in progress.
+			committer.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+
+		try {
+			if (!discard) {
+				commit();
+			}
+		} finally {
+			channel.close();
+
+			if (discard) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+}
@@ -0,0 +1,41 @@
+package app.core;
+
+/**
+ * Represents an option which changes how a session (see {@link AppCore}) loads and handles it's file.
+ */
+public enum SessionOption {
+	/**
+	 * Maps the file into memory and only indexes the offsets at which the lines begin.
+	 * Lines are decoded when an operation first touches them, so memory usage grows with the number of lines
+	 * worked on instead of the size of the file.
+	 */
+	MEMORY_MAPPED,
+
+	/**
+	 * Splits the file into ranges of whole lines which are decoded simultaneously on all available processors.
+	 * It has no effect together with {@link #MEMORY_MAPPED} as then the lines are not decoded up front.
+	 */
+	PARALLEL_LOAD,
+
+	/**
+	 * Records every operation in a journal next to the file, which is written down and synced every few milliseconds.
+	 * When a session ends without writing down it's content (e.g.: the application crashed), the operations
+	 * recorded in the journal are performed again the next time the file is opened with this option.
+	 */
+	JOURNAL,
+
+	/**
+	 * Parses the words of all lines in the background right after the file is loaded, so the first operations on words
+	 * don't have to parse them first. Lines touched by an operation before their turn are taken over and parsed as usual.
+	 * It has no effect together with {@link #MEMORY_MAPPED} as then the lines are not decoded up front.
+	 */
+	WARM_UP,
+
+	/**
+	 * Allows the session to be used by many threads at once. Operations which touch only one or two lines lock the ranges of lines
+	 * containing them, so operations on different ranges are performed simultaneously, while operations on the whole content,
+	 * adding or removing lines and closing the session lock the whole content.
+	 * Together with {@link #MEMORY_MAPPED} every operation locks the whole content, as the lines are decoded into a shared map.
+	 */
+	CONCURRENT,
+}
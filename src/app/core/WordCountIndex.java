@@ -0,0 +1,268 @@
+package app.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents the word counts of all lines of a session (see {@link AppCore}) kept as prefix sums in a Fenwick tree.
+ * The total word count is kept separately, while the count of words before a line, changing the count of a line and finding
+ * the line containing the n-th word of the whole content each take a logarithmic number of steps.
+ * Lines can only be added or removed at the end, the same as in the session.
+ */
+final class WordCountIndex {
+	private static final int initialCapacity;
+
+	// Fenwick tree (1-based) of the word counts of the lines.
+	private long[] tree;
+	private int size;
+	private long total;
+
+	static {
+		initialCapacity = 16;
+	}
+
+	/**
+	 * Creates an index of the given word counts.
+	 * @param counts The word count of each line, in order.
+	 */
+	WordCountIndex(int[] counts) {
+		super();
+
+		tree = new long[Math.max(initialCapacity, counts.length + 1)];
+		size = counts.length;
+
+		build(counts);
+	}
+
+	/**
+	 * Builds the tree of the given word counts in linear time by pushing each node's sum to it's parent.
+	 * @param counts The word count of each line, in order, of which there are as many as there are lines.
+	 */
+	private void build(int[] counts) {
+		Arrays.fill(tree, 0, size + 1, 0);
+
+		total = 0;
+
+		for (int z = 1; z <= size; ++z) {
+			tree[z] += counts[z - 1];
+			total += counts[z - 1];
+
+			final int parent = z + (z & -z);
+
+			if (parent <= size) {
+				tree[parent] += tree[z];
+			}
+		}
+	}
+
+	/**
+	 * Gets the count of lines.
+	 * @return A positive integer representing the line count.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the count of words on all lines.
+	 * @return A positive integer representing the word count.
+	 */
+	long total() {
+		return total;
+	}
+
+	/**
+	 * Gets the count of words on the lines before the given one.
+	 * @param line Index of the line, which can also be the line count.
+	 * @return A positive integer representing the word count.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	long wordsBefore(int line) throws IndexOutOfBoundsException {
+		if (line < 0 || size < line) {
+			throw new IndexOutOfBoundsException(line);
+		}
+
+		long sum = 0;
+
+		for (int z = line; z > 0; z -= z & -z) {
+			sum += tree[z];
+		}
+
+		return sum;
+	}
+
+	/**
+	 * Gets the word count of a line.
+	 * @param line Index of the line.
+	 * @return A positive integer representing the word count.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	int get(int line) throws IndexOutOfBoundsException {
+		if (line < 0 || size <= line) {
+			throw new IndexOutOfBoundsException(line);
+		}
+
+		return (int) (wordsBefore(line + 1) - wordsBefore(line));
+	}
+
+	/**
+	 * Changes the word count of a line.
+	 * @param line Index of the line.
+	 * @param count The new word count.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	void set(int line, int count) throws IndexOutOfBoundsException {
+		final long delta = count - get(line);
+
+		if (delta == 0) {
+			return;
+		}
+
+		for (int z = line + 1; z <= size; z += z & -z) {
+			tree[z] += delta;
+		}
+
+		total += delta;
+	}
+
+	/**
+	 * Swaps the word counts of two lines.
+	 * @param firstLine Index of the first line.
+	 * @param secondLine Index of the second line.
+	 * @throws IndexOutOfBoundsException Thrown when any of the indexes are out of bounds.
+	 */
+	void swap(int firstLine, int secondLine) throws IndexOutOfBoundsException {
+		final int firstCount = get(firstLine);
+
+		set(firstLine, get(secondLine));
+		set(secondLine, firstCount);
+	}
+
+	/**
+	 * Moves the word counts of a range of lines the same way as the lines themselves were moved.
+	 * Short ranges are changed one line at a time, while for long ones the whole tree is taken apart and built again in linear time.
+	 * @param from Index of the first line of the range.
+	 * @param sources For each line of the range, the index of the line whose word count it gets, which must be in the range as well.
+	 * @throws IndexOutOfBoundsException Thrown when any of the indexes are out of bounds.
+	 */
+	void move(int from, int[] sources) throws IndexOutOfBoundsException {
+		if (from < 0 || size - sources.length < from) {
+			throw new IndexOutOfBoundsException(from);
+		}
+
+		if ((long) sources.length * Integer.SIZE < size) {
+			int[] counts = new int[sources.length];
+
+			for (int z = 0; z < counts.length; ++z) {
+				counts[z] = get(sources[z]);
+			}
+
+			for (int z = 0; z < counts.length; ++z) {
+				set(from + z, counts[z]);
+			}
+
+			return;
+		}
+
+		// Turn the tree back into the word counts themselves.
+		for (int z = size; z > 0; --z) {
+			final int parent = z + (z & -z);
+
+			if (parent <= size) {
+				tree[parent] -= tree[z];
+			}
+		}
+
+		int[] counts = new int[size];
+
+		for (int z = 0; z < size; ++z) {
+			counts[z] = (int) tree[z + 1];
+		}
+
+		int[] moved = new int[sources.length];
+
+		for (int z = 0; z < moved.length; ++z) {
+			moved[z] = counts[sources[z]];
+		}
+
+		System.arraycopy(moved, 0, counts, from, moved.length);
+
+		build(counts);
+	}
+
+	/**
+	 * Appends a line.
+	 * @param count The word count of the line.
+	 */
+	void add(int count) {
+		if (size + 1 == tree.length) {
+			tree = Arrays.copyOf(tree, tree.length * 2);
+		}
+
+		final int node = ++size;
+
+		// The node covers the line and the lines right before it, whose sums are held by the nodes it skips over.
+		long sum = count;
+
+		for (int z = node - 1; z > node - (node & -node); z -= z & -z) {
+			sum += tree[z];
+		}
+
+		tree[node] = sum;
+		total += count;
+	}
+
+	/**
+	 * Removes the last line. No other node covers it, so the rest of the tree stays the same.
+	 * @throws IllegalStateException Thrown when there are no lines.
+	 */
+	void removeLast() throws IllegalStateException {
+		if (size == 0) {
+			throw new IllegalStateException();
+		}
+
+		total -= get(size - 1);
+		tree[size--] = 0;
+	}
+
+	/**
+	 * Finds the line containing the given word, counting the words of all lines in order.
+	 * @param word Index of the word in the whole content.
+	 * @return Index of the line containing the word.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	int lineOf(long word) throws IndexOutOfBoundsException {
+		if (word < 0 || total <= word) {
+			throw new IndexOutOfBoundsException(Long.toString(word));
+		}
+
+		// Descend the tree, skipping every node whose words are all before the wanted one.
+		int line = 0;
+
+		for (int step = Integer.highestOneBit(size); step != 0; step >>= 1) {
+			final int next = line + step;
+
+			if (next <= size && tree[next] <= word) {
+				word -= tree[next];
+				line = next;
+			}
+		}
+
+		return line;
+	}
+
+	/**
+	 * Finds the first line with at least one word, starting at the given line.
+	 * @param line Index of the line at which the search begins, which can also be the line count.
+	 * @return Index of the found line, or -1 when no line from the given one on has any words.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	int nextLineWithWords(int line) throws IndexOutOfBoundsException {
+		final long before = wordsBefore(line);
+
+		if (before == total) {
+			return -1;
+		}
+
+		return lineOf(before);
+	}
+}
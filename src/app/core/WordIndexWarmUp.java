@@ -0,0 +1,221 @@
+package app.core;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import app.core.utils.Line;
+import app.core.utils.Tokenizer;
+
+/**
+ * Represents the parsing of the words of all lines of a session (see {@link AppCore}) in the background, right after it is loaded.
+ * The lines are split into chunks which are parsed in parallel by a bounded count of threads.
+ * Before the session touches a line, it claims the line's chunk: a chunk which wasn't started yet is handed over to the session,
+ * which then parses it's lines when needed as usual, while a chunk which is being parsed is waited for.
+ * Once claimed, a chunk is never touched by the background threads again, so the session can change it's lines freely.
+ * The word counts of the parsed lines are also kept, so the session can count the words of all lines without touching each line.
+ * When all chunks are parsed, the index of the word counts (see {@link WordCountIndex}) is built in the background as well.
+ */
+final class WordIndexWarmUp implements AutoCloseable {
+	private static final int chunkSize;
+
+	// States of the chunks. A chunk is claimed once it is either handed over or parsed.
+	private static final int pending;
+	private static final int parsing;
+	private static final int handedOver;
+	private static final int parsed;
+
+	// The lines as they were when the warm-up started. The lines of a chunk are only taken from here while it is not claimed,
+	// which means the session hasn't changed their positions yet.
+	private final Line[] lines;
+	private final Tokenizer tokenizer;
+	private final int[] wordCounts;
+	private final AtomicIntegerArray states;
+	private final AtomicInteger nextChunk;
+	private final AtomicInteger remainingChunks;
+	private final ExecutorService executor;
+
+	private volatile boolean cancelled;
+	private volatile boolean anyHandedOver;
+
+	// Present once all chunks are parsed, unless the session moved any lines before.
+	private volatile WordCountIndex wordCountIndex;
+	private volatile boolean linesMoved;
+
+	static {
+		chunkSize = 1 << 10;
+
+		pending = 0;
+		parsing = 1;
+		handedOver = 2;
+		parsed = 3;
+	}
+
+	/**
+	 * Starts parsing the words of the given lines in the background.
+	 * @param lines The lines of the session.
+	 * @param tokenizer The tokenizer which finds the words.
+	 */
+	WordIndexWarmUp(List<Line> lines, Tokenizer tokenizer) {
+		super();
+
+		this.lines = lines.toArray(Line[]::new);
+		this.tokenizer = tokenizer;
+		wordCounts = new int[this.lines.length];
+		states = new AtomicIntegerArray((this.lines.length + chunkSize - 1) / chunkSize);
+		nextChunk = new AtomicInteger();
+		remainingChunks = new AtomicInteger(states.length());
+		cancelled = false;
+		anyHandedOver = false;
+		wordCountIndex = null;
+		linesMoved = false;
+
+		// Leave one processor for the user's operations.
+		final int threadCount = Math.max(1, Math.min(states.length(), Runtime.getRuntime().availableProcessors() - 1));
+
+		executor = Executors.newFixedThreadPool(threadCount, (Runnable task) -> {
+			Thread thread = new Thread(task, "word-index-warm-up");
+
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+
+			return thread;
+		});
+
+		for (int z = 0; z < threadCount; ++z) {
+			executor.execute(this::parseChunks);
+		}
+
+		executor.shutdown();
+	}
+
+	/**
+	 * Parses the chunks one after another until all of them are taken.
+	 */
+	private void parseChunks() {
+		for (int chunk = nextChunk.getAndIncrement(); chunk < states.length() && !cancelled; chunk = nextChunk.getAndIncrement()) {
+			if (!states.compareAndSet(chunk, pending, parsing)) {
+				continue;
+			}
+
+			int state = handedOver;
+
+			try {
+				final int end = Math.min(lines.length, (chunk + 1) * chunkSize);
+
+				for (int z = chunk * chunkSize; z < end && !cancelled; ++z) {
+					lines[z].setTokenizer(tokenizer);
+
+					wordCounts[z] = lines[z].wordCount();
+				}
+
+				if (!cancelled) {
+					state = parsed;
+				}
+			} finally {
+				synchronized (this) {
+					states.set(chunk, state);
+
+					notifyAll();
+				}
+			}
+
+			// Handed over chunks are never finished here, so this is only reached when all chunks were parsed.
+			if (remainingChunks.decrementAndGet() == 0 && state == parsed && !anyHandedOver) {
+				wordCountIndex = new WordCountIndex(wordCounts);
+			}
+		}
+	}
+
+	/**
+	 * Makes sure the background threads are not going to touch the given line, waiting for it's chunk if it is being parsed.
+	 * Lines added after the warm-up started are never touched, so they need not be claimed.
+	 * @param lineIndex Index of the line.
+	 */
+	void claim(int lineIndex) {
+		if (lineIndex < 0 || lines.length <= lineIndex) {
+			return;
+		}
+
+		final int chunk = lineIndex / chunkSize;
+
+		if (states.get(chunk) >= handedOver) {
+			return;
+		}
+
+		if (states.compareAndSet(chunk, pending, handedOver)) {
+			anyHandedOver = true;
+
+			return;
+		}
+
+		boolean interrupted = false;
+
+		synchronized (this) {
+			while (states.get(chunk) < handedOver) {
+				try {
+					wait();
+				} catch (InterruptedException exception) {
+					// The chunk is small, so finish waiting and keep the interruption for the caller.
+					interrupted = true;
+				}
+			}
+		}
+
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Gets the word count of a line which was parsed in the background, as long as it is still at the same position.
+	 * @param lineIndex Index of the line.
+	 * @param line The line which is currently at the given index.
+	 * @return A positive integer representing the word count, or -1 when the line wasn't parsed in the background
+	 * or was moved since.
+	 */
+	int getWordCount(int lineIndex, Line line) {
+		if (lineIndex < 0 || lines.length <= lineIndex || lines[lineIndex] != line || states.get(lineIndex / chunkSize) != parsed) {
+			return -1;
+		}
+
+		return wordCounts[lineIndex];
+	}
+
+	/**
+	 * Gets the index of the word counts of all lines, which is built once all lines are parsed in the background.
+	 * The session owns the index after that, as it is never touched here again.
+	 * @return The index, or a null reference when it is not built yet, or the session moved any lines since the warm-up started.
+	 */
+	WordCountIndex getWordCountIndex() {
+		if (linesMoved) {
+			return null;
+		}
+
+		return wordCountIndex;
+	}
+
+	/**
+	 * Notes that the session moved, added or removed a line, so the word counts don't match the positions of the lines anymore.
+	 */
+	void linesMoved() {
+		linesMoved = true;
+	}
+
+	/**
+	 * Stops parsing and waits for the background threads to finish.
+	 */
+	@Override
+	public void close() {
+		cancelled = true;
+
+		try {
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		} catch (InterruptedException exception) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package app.core.utils;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Represents a read-only view of ASCII characters stored as bytes in a slice of an array.
+ * It allows the content of a line to be searched without creating a string for it.
+ */
+final class AsciiSequence implements CharSequence {
+	private final byte[] bytes;
+	private final int offset;
+	private final int length;
+
+	/**
+	 * Creates new instance of the class viewing the given slice.
+	 * @param bytes The array containing the characters.
+	 * @param offset The offset into the array at which the slice begins.
+	 * @param length The length of the slice.
+	 */
+	AsciiSequence(byte[] bytes, int offset, int length) {
+		super();
+
+		this.bytes = bytes;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/**
+	 * Gets the array containing the characters.
+	 * @return A non-null reference to the array, which must not be changed.
+	 */
+	byte[] array() {
+		return bytes;
+	}
+
+	/**
+	 * Gets the offset into the array at which the characters begin.
+	 * @return A positive integer representing the offset.
+	 */
+	int arrayOffset() {
+		return offset;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || length <= index) {
+			throw new IndexOutOfBoundsException(index);
+		}
+
+		return (char) bytes[offset + index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) throws IndexOutOfBoundsException {
+		if (start < 0 || end < start || length < end) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		return new AsciiSequence(bytes, offset + start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(bytes, offset, length, StandardCharsets.ISO_8859_1);
+	}
+}
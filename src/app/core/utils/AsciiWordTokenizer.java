@@ -0,0 +1,220 @@
+package app.core.utils;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+
+/**
+ * Represents the default tokenizer, whose words are runs of word characters ({@code [a-zA-Z_0-9]}) which don't consist only of digits.
+ * These are the same words as the ones matched by the regular expression {@code \d*(?!\d)\w+}, but the runs are scanned by hand,
+ * which avoids creating a matcher and backtracking.
+ * Lines stored as ASCII bytes (see {@link AsciiSequence}) are classified 64 bytes at a time, eight in each step by treating a long as a vector
+ * of bytes (SWAR), which gives one bit per byte telling whether it is a word character, and the runs are read from those bits.
+ * Other lines are scanned one character at a time.
+ */
+public final class AsciiWordTokenizer implements Tokenizer {
+	private static final AsciiWordTokenizer instance;
+
+	// Reads eight bytes of an array at any offset as a long, the first byte being the lowest one.
+	private static final VarHandle longView;
+
+	// Each byte of these is the same value, as the constants of the vector operations.
+	private static final long lowBits;
+	private static final long highBits;
+	private static final long caseBit;
+	private static final long gatherMultiplier;
+
+	static {
+		instance = new AsciiWordTokenizer();
+
+		longView = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+		lowBits = 0x0101010101010101L;
+		highBits = 0x8080808080808080L;
+		caseBit = 0x2020202020202020L;
+		gatherMultiplier = 0x0002040810204081L;
+	}
+
+	/**
+	 * Not meant to be instantiated, as the only instance is shared.
+	 */
+	private AsciiWordTokenizer() {
+		super();
+	}
+
+	/**
+	 * Gets the shared instance.
+	 * @return A non-null reference to the instance.
+	 */
+	public static AsciiWordTokenizer getInstance() {
+		return instance;
+	}
+
+	@Override
+	public int tokenize(CharSequence content, int from, int[] tokens, int index, int maxCount) {
+		if (content instanceof AsciiSequence) {
+			AsciiSequence ascii = (AsciiSequence) content;
+
+			return tokenize(ascii.array(), ascii.arrayOffset(), ascii.length(), from, tokens, index, maxCount);
+		}
+
+		final int length = content.length();
+
+		int count = 0;
+
+		for (int z = from; z < length && count < maxCount;) {
+			final int start = z;
+			boolean digitsOnly = true;
+
+			// A run of word characters is either a whole word, or not a word at all when it consists only of digits.
+			for (char character; z < length && isWordCharacter(character = content.charAt(z)); ++z) {
+				if (character < '0' || '9' < character) {
+					digitsOnly = false;
+				}
+			}
+
+			if (z != start && !digitsOnly) {
+				tokens[index + count * 2] = start;
+				tokens[index + count * 2 + 1] = z - start;
+				++count;
+			}
+
+			// Skip the character which ended the run.
+			++z;
+		}
+
+		return count;
+	}
+
+	/**
+	 * Same as {@code tokenize} for ASCII characters stored as bytes, which are classified 64 at a time.
+	 * @param bytes The array containing the characters.
+	 * @param offset The offset into the array at which the characters begin.
+	 * @param length The count of characters.
+	 * @param from The offset at which the search begins, relative to the characters.
+	 * @param tokens The array to which the offset and the length of each token are stored next to each other.
+	 * @param index The index into the array at which the first token is stored.
+	 * @param maxCount The maximum count of tokens to store.
+	 * @return A positive integer representing the count of stored tokens.
+	 */
+	private static int tokenize(byte[] bytes, int offset, int length, int from, int[] tokens, int index, int maxCount) {
+		int count = 0;
+
+		// Bits of the current block of 64 characters: word characters and the ones which are not digits.
+		int block = -1;
+		long wordBits = 0, letterBits = 0;
+
+		int start = -1;
+		boolean hasLetter = false;
+
+		for (int z = from; z < length && count < maxCount;) {
+			if (z >>> 6 != block) {
+				block = z >>> 6;
+
+				final int base = block << 6;
+				final int end = Math.min(length, base + 64);
+
+				wordBits = 0;
+				letterBits = 0;
+
+				int y = base;
+
+				for (; y + 8 <= end; y += 8) {
+					final long eight = (long) longView.get(bytes, offset + y);
+					final long digits = inRange(eight, '0', '9');
+					final long letters = inRange(eight | caseBit, 'a', 'z') | inRange(eight, '_', '_');
+
+					wordBits |= gather(digits | letters) << (y - base);
+					letterBits |= gather(letters) << (y - base);
+				}
+
+				// The characters after the last whole eight, which are never part of a whole block.
+				for (; y < end; ++y) {
+					final char character = (char) bytes[offset + y];
+
+					if (isWordCharacter(character)) {
+						wordBits |= 1L << (y - base);
+
+						if (character < '0' || '9' < character) {
+							letterBits |= 1L << (y - base);
+						}
+					}
+				}
+			}
+
+			final int bit = z & 63;
+
+			if (start == -1) {
+				// Find the first word character, skipping the whole block when there is none. There are none after the end.
+				final long remaining = wordBits & (-1L << bit);
+
+				if (remaining == 0) {
+					z = (block + 1) << 6;
+
+					continue;
+				}
+
+				z = (block << 6) + Long.numberOfTrailingZeros(remaining);
+				start = z;
+				hasLetter = false;
+
+				continue;
+			}
+
+			// Find the end of the run, which might continue in the next block.
+			final long others = ~wordBits & (-1L << bit);
+			final int runEnd = others == 0 ? 64 : Long.numberOfTrailingZeros(others);
+			final long runBits = (runEnd == 64 ? -1L : (1L << runEnd) - 1) & (-1L << bit);
+
+			if ((letterBits & runBits) != 0) {
+				hasLetter = true;
+			}
+
+			z = (block << 6) + runEnd;
+
+			if (runEnd != 64 || length <= z) {
+				if (hasLetter) {
+					tokens[index + count * 2] = start;
+					tokens[index + count * 2 + 1] = z - start;
+					++count;
+				}
+
+				start = -1;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Checks which of the eight bytes are in the given range. All bytes must be less than 0x80, so adding to them never carries.
+	 * @param eight The eight bytes.
+	 * @param low The lowest byte in the range.
+	 * @param high The highest byte in the range.
+	 * @return The eight bytes, each having the highest bit set when the byte is in the range and all other bits clear.
+	 */
+	private static long inRange(long eight, char low, char high) {
+		final long aboveLow = eight + lowBits * (0x80 - low);
+		final long aboveHigh = eight + lowBits * (0x7F - high);
+
+		return aboveLow & ~aboveHigh & highBits;
+	}
+
+	/**
+	 * Gathers the highest bits of the eight bytes to the lowest eight bits.
+	 * @param eight The eight bytes, having only the highest bits set, if any.
+	 * @return An integer whose bit {@code n} is the highest bit of byte {@code n}.
+	 */
+	private static long gather(long eight) {
+		return (eight * gatherMultiplier) >>> 56;
+	}
+
+	/**
+	 * Checks whether the character is a word character, the same as {@code \w} without the {@code UNICODE_CHARACTER_CLASS} flag.
+	 * @param character The character.
+	 * @return True when the character is an ASCII letter, digit or an underscore. Otherwise, false.
+	 */
+	private static boolean isWordCharacter(char character) {
+		return ('a' <= character && character <= 'z') || ('A' <= character && character <= 'Z') || ('0' <= character && character <= '9') || character == '_';
+	}
+}
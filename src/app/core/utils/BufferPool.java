@@ -0,0 +1,54 @@
+package app.core.utils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Represents a shared pool of direct byte buffers with the same capacity.
+ * Allocating direct buffers is expensive, so the ones which are no longer used are kept for later instead of being freed.
+ */
+final class BufferPool {
+	private static final int bufferSize;
+	private static final int maxPooled;
+
+	private static final ConcurrentLinkedQueue<ByteBuffer> pool;
+
+	static {
+		bufferSize = 1 << 16;
+		maxPooled = 64;
+
+		pool = new ConcurrentLinkedQueue<ByteBuffer>();
+	}
+
+	/**
+	 * Not meant to be instantiated.
+	 */
+	private BufferPool() {
+		super();
+	}
+
+	/**
+	 * Takes a buffer from the pool or allocates a new one, when there are none left.
+	 * @return A non-null reference to a cleared buffer.
+	 */
+	static ByteBuffer acquire() {
+		ByteBuffer buffer = pool.poll();
+
+		if (buffer == null) {
+			return ByteBuffer.allocateDirect(bufferSize);
+		}
+
+		return buffer.clear();
+	}
+
+	/**
+	 * Returns a buffer to the pool. It must not be used after that.
+	 * @param buffer The buffer taken through {@code acquire}.
+	 */
+	static void release(ByteBuffer buffer) {
+		// The size is only approximate, which is fine for limiting the pool.
+		if (pool.size() < maxPooled) {
+			pool.offer(buffer);
+		}
+	}
+}
@@ -1,13 +1,30 @@
 package app.core.utils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
 /**
  * Represents a line and it's words, if any.
  */
 public final class Line {
+	// Only one of the three is present at a time. Lines consisting only of ASCII characters are loaded as slices of a shared array,
+	// which are only turned into strings on demand. Swapping and moving words rearranges the pieces without copying the content,
+	// which is then copied to a new string each time it is requested as a whole.
 	private String line;
+	private PieceTable pieces;
+
+	// The slice of the shared array, stored directly in the line to avoid another object per line.
+	private byte[] asciiBytes;
+	private int asciiOffset;
+	private int asciiLength;
+
+	// Index of the line in the file it was loaded from and whether it's content was changed since.
+	private int sourceLine = -1;
+	private boolean modified = false;
 
 	// No words are parsed when the object is created so this is valid for all instances have this values in the beginning.
-	private Word[] words = {};
+	private WordIndex words = WordIndex.empty();
 	private boolean allWordsParsed = false;
 
 	/**
@@ -17,6 +34,7 @@ public final class Line {
 		super();
 
 		line = "";
+		pieces = null;
 	}
 	
 	/**
@@ -32,6 +50,24 @@ public final class Line {
 		}
 
 		this.line = line;
+		this.pieces = null;
+	}
+
+	/**
+	 * Constructor for a line from a slice of an array containing only ASCII characters, excluding line feed (LF) and carriage return (CR).
+	 * The slice is referenced and must not be changed afterwards.
+	 * @param bytes The array containing the characters.
+	 * @param offset The offset into the array at which the line begins.
+	 * @param length The length of the line.
+	 */
+	Line(byte[] bytes, int offset, int length) {
+		super();
+
+		line = null;
+		pieces = null;
+		asciiBytes = bytes;
+		asciiOffset = offset;
+		asciiLength = length;
 	}
 
 	/**
@@ -42,21 +78,169 @@ public final class Line {
 		return new Line();
 	}
 
+	/**
+	 * Gets the index this line had in the file it was loaded from.
+	 * @return The index of the line or -1 when the line was not loaded from a file.
+	 */
+	public int getSourceLine() {
+		return sourceLine;
+	}
+
+	/**
+	 * Sets the index this line had in the file it was loaded from.
+	 * @param sourceLine The index of the line.
+	 */
+	void setSourceLine(int sourceLine) {
+		this.sourceLine = sourceLine;
+	}
+
+	/**
+	 * Checks whether the content of the line was changed since it was created.
+	 * @return True when words were swapped on this line. Otherwise, false.
+	 */
+	public boolean isModified() {
+		return modified;
+	}
+
 	/**
 	 * Calling this is equivalent to {@code getLine().isEmpty()}.
 	 * @return True when the line is empty. Otherwise, false.
 	 * @apiNote This is not the same as word count! To check whether the line contains words use {@code hasWords}.
 	 */
 	public boolean isEmpty() {
-		return line.isEmpty();
+		if (asciiBytes != null) {
+			return asciiLength == 0;
+		}
+
+		return line == null ? pieces.length() == 0 : line.isEmpty();
 	}
 
 	/**
 	 * Returns a reference to the string referenced by the current instance.
+	 * For lines stored as ASCII or as pieces after their words were moved, a new string is created every time, so it is not kept in memory
+	 * and the pieces stay as they are.
+	 * Every ASCII character has the same value in ISO-8859-1, which is the cheapest charset to decode.
 	 * @return A non-null reference to the referenced string.
 	 */
 	public String getLine() {
-		return line;
+		if (asciiBytes != null) {
+			return new String(asciiBytes, asciiOffset, asciiLength, StandardCharsets.ISO_8859_1);
+		}
+
+		return line == null ? pieces.toString() : line;
+	}
+
+	/**
+	 * Gets the content of the line for searching, without creating a string for lines stored as ASCII or as pieces.
+	 * @return A non-null reference to the content.
+	 */
+	CharSequence getContent() {
+		if (asciiBytes != null) {
+			return new AsciiSequence(asciiBytes, asciiOffset, asciiLength);
+		}
+
+		return line == null ? pieces : line;
+	}
+
+	/**
+	 * Gets the current content of the line as a value which is never changed, so it can be kept while the line changes later
+	 * and read from any thread. Neither the characters of lines stored as ASCII nor the pieces of lines whose words were swapped are copied.
+	 * @return A non-null reference to the content.
+	 */
+	public CharSequence getImmutableContent() {
+		if (asciiBytes != null) {
+			return new AsciiSequence(asciiBytes, asciiOffset, asciiLength);
+		}
+
+		return line == null ? pieces : line;
+	}
+
+	/**
+	 * Gets the content of the line as pieces, so they can be rearranged.
+	 * @return A non-null reference to the pieces.
+	 */
+	private PieceTable getPieces() {
+		return pieces == null ? PieceTable.of(getLine()) : pieces;
+	}
+
+	/**
+	 * Replaces the content of the line with the given pieces.
+	 * @param pieces The new pieces.
+	 */
+	private void setPieces(PieceTable pieces) {
+		this.pieces = pieces;
+
+		line = null;
+		asciiBytes = null;
+		modified = true;
+	}
+
+	/**
+	 * Extracts the given word.
+	 * @param word Index of the word.
+	 * @return A non-null reference to a string containing the word.
+	 * @throws IndexOutOfBoundsException Thrown when the word index is out of bounds.
+	 */
+	private String extract(int word) throws IndexOutOfBoundsException {
+		if (asciiBytes != null) {
+			final int start = words.getStartOffset(word);
+
+			return new String(asciiBytes, asciiOffset + start, words.getEndOffset(word) - start, StandardCharsets.ISO_8859_1);
+		}
+
+		if (line == null) {
+			return pieces.substring(words.getStartOffset(word), words.getEndOffset(word));
+		}
+
+		return line.substring(words.getStartOffset(word), words.getEndOffset(word));
+	}
+
+	/**
+	 * Compares the content of the line with the content of another one lexicographically, the same as {@link String#compareTo} does.
+	 * Two lines stored as ASCII are compared byte by byte, without creating strings.
+	 * @param other The other line.
+	 * @return Zero when the contents are equal, a negative integer when this line comes first, or a positive integer otherwise.
+	 */
+	public int compareContent(Line other) {
+		if (asciiBytes != null && other.asciiBytes != null) {
+			return Arrays.compare(asciiBytes, asciiOffset, asciiOffset + asciiLength, other.asciiBytes, other.asciiOffset, other.asciiOffset + other.asciiLength);
+		}
+
+		return CharSequence.compare(getContent(), other.getContent());
+	}
+
+	/**
+	 * Sets the tokenizer which finds the words of the line, which is {@link AsciiWordTokenizer} by default.
+	 * The words parsed by a different tokenizer are discarded and parsed again when needed.
+	 * @param tokenizer The tokenizer.
+	 */
+	public void setTokenizer(Tokenizer tokenizer) {
+		if (words.getTokenizer() != tokenizer) {
+			words = WordIndex.empty(tokenizer);
+			allWordsParsed = false;
+		}
+	}
+
+	/**
+	 * Parses the words of the line until there are at least the given count of them or the line ends.
+	 * Parsing continues right after the last word already parsed, so every part of the line is parsed only once
+	 * no matter in which order the words are requested.
+	 * @param count The count of words needed.
+	 * @return The count of words parsed so far.
+	 */
+	private int parseWords(int count) {
+		if (!allWordsParsed && words.size() < count) {
+			words = LineParser.getWords(this, words, count);
+
+			if (words.size() < count) {
+				allWordsParsed = true;
+
+				// No more words will be added.
+				words.trim();
+			}
+		}
+
+		return words.size();
 	}
 
 	/**
@@ -66,17 +250,9 @@ public final class Line {
 	 * @throws IndexOutOfBoundsException Thrown when the word index is out of bounds.
 	 */
 	public String getWord(int word) throws IndexOutOfBoundsException {
-		if (!allWordsParsed) {
-			if (words.length < word + 1) {
-				words = LineParser.getWords(this, word + 1);
+		parseWords(word + 1);
 
-				if (words.length < word + 1) {
-					allWordsParsed = true;
-				}
-			}
-		}
-
-		return words[word].getWord(line);
+		return extract(word);
 	}
 
 	/**
@@ -85,23 +261,7 @@ public final class Line {
 	 * True when the line has at least one word. Otherwise, false.
 	 */
 	public boolean hasWords() {
-		if (!allWordsParsed) {
-			if (words.length == 0) {
-				words = LineParser.getWords(this, 1);
-
-				if (words.length == 0) {
-					allWordsParsed = true;
-
-					return false;
-				} else {
-					return true;
-				}
-			} else {
-				return true;
-			}
-		}
-
-		return words.length != 0;
+		return parseWords(1) != 0;
 	}
 
 	/**
@@ -109,13 +269,20 @@ public final class Line {
 	 * @return The word count of the line.
 	 */
 	public int wordCount() {
-		if (!allWordsParsed) {
-			words = LineParser.getWords(this);
+		return parseWords(Integer.MAX_VALUE);
+	}
 
-			allWordsParsed = true;
+	/**
+	 * Counts the words of the whole line without keeping them, unless they are already parsed.
+	 * This is cheaper than {@code wordCount} when the words themselves are not needed.
+	 * @return The word count of the line.
+	 */
+	public int countWords() {
+		if (allWordsParsed) {
+			return words.size();
 		}
 
-		return words.length;
+		return LineParser.countWords(this, words.getTokenizer());
 	}
 
 	/**
@@ -128,17 +295,7 @@ public final class Line {
 			return 0;
 		}
 
-		if (!allWordsParsed) {
-			if (words.length < max) {
-				words = LineParser.getWords(this, max);
-
-				if (words.length < max) {
-					allWordsParsed = true;
-				}
-			}
-		}
-
-		return words.length;
+		return parseWords(max);
 	}
 
 	/**
@@ -151,19 +308,7 @@ public final class Line {
 			return false;
 		}
 
-		if (!allWordsParsed) {
-			if (words.length < word + 1) {
-				words = LineParser.getWords(this, word + 1);
-
-				if (words.length < word + 1) {
-					allWordsParsed = true;
-
-					return false;
-				}
-			}
-		}
-
-		return word < words.length;
+		return word < parseWords(word + 1);
 	}
 
 	/**
@@ -175,55 +320,30 @@ public final class Line {
 	 * @apiNote {@code leftWordIndex} is assumed to be less or equal to {@code rightWordIndex}.
 	 */
 	private void swapOwnWords(int leftWordIndex, int rightWordIndex) throws IndexOutOfBoundsException {
-		// Check whether the word map is already generated until the right word's index.
-		if (!allWordsParsed) {
-			if (words.length < rightWordIndex + 1) {
-				if (rightWordIndex + 1 < 0) {
-					throw new IndexOutOfBoundsException();
-				}
-
-				this.words = LineParser.getWords(this, rightWordIndex + 1);
-
-				if (words.length <= rightWordIndex) {
-					allWordsParsed = true;
-				}
-			}
+		if (rightWordIndex + 1 < 0) {
+			throw new IndexOutOfBoundsException();
 		}
 
+		// Make sure the words are parsed until the right word's index.
+		parseWords(rightWordIndex + 1);
+
 		// Will throw an "IndexOutOfBoundsException" in case the word count is smaller.
 		// It is annotated that it can throw it.
-		Word leftWord = words[leftWordIndex], rightWord = words[rightWordIndex];
-
-		{
-			// Create new string builder with capacity equal to the string's length.
-			StringBuilder builder = new StringBuilder(line.length());
+		final int leftStart = words.getStartOffset(leftWordIndex), leftEnd = words.getEndOffset(leftWordIndex);
+		final int rightStart = words.getStartOffset(rightWordIndex), rightEnd = words.getEndOffset(rightWordIndex);
 
-			// Build string from parts.
-			builder.append(line.substring(0, leftWord.getStartOffset()));
-			builder.append(rightWord.getWord(line));
-			builder.append(line.substring(leftWord.getEndOffset(), rightWord.getStartOffset()));
-			builder.append(leftWord.getWord(line));
-			builder.append(line.substring(rightWord.getEndOffset()));
-
-			line = builder.toString();
-
-			// Free the string builder.
-		}
+		// Swap the pieces of the two words.
+		setPieces(getPieces().swap(leftStart, leftEnd, rightStart, rightEnd));
 
 		// Calculate the delta of the word lengths.
-		final int delta = rightWord.getLength() - leftWord.getLength();
-
-		// Adjust the offset of the right word.
-		rightWord.offsetWord(delta);
+		final int delta = (rightEnd - rightStart) - (leftEnd - leftStart);
 
 		// Swap words' lengths.
-		leftWord.swapLengths(rightWord);
+		words.swapLengths(leftWordIndex, words, rightWordIndex);
 
-		// Adjust the offsets of the words between the two, if any.
+		// Adjust the offsets of the words between the two, if any, and the right word.
 		// The other words' offsets will stay correct.
-		for (int z = leftWordIndex + 1; z < rightWordIndex; ++z) {
-			words[z].offsetWord(delta);
-		}
+		words.offsetWords(leftWordIndex + 1, rightWordIndex + 1, delta);
 	}
 
 	/**
@@ -236,99 +356,44 @@ public final class Line {
 	 * @apiNote {@code otherLine} is assumed to be a reference to a different object.
 	 */
 	private void swapOwnAndOtherWords(Line otherLine, int ownWordIndex, int otherWordIndex) throws IndexOutOfBoundsException {
-		// Check whether the word map is already generated until the word's index.
-		if (!allWordsParsed) {
-			if (words.length < ownWordIndex + 1) {
-				if (ownWordIndex + 1 < 0) {
-					throw new IndexOutOfBoundsException();
-				}
-
-				words = LineParser.getWords(this, ownWordIndex + 1);
-
-				if (words.length <= ownWordIndex) {
-					allWordsParsed = true;
-				}
-			}
+		if (ownWordIndex + 1 < 0 || otherWordIndex + 1 < 0) {
+			throw new IndexOutOfBoundsException();
 		}
 
-		// Check whether the word map is already generated until the word's index.
-		if (!otherLine.allWordsParsed) {
-			if (otherLine.words.length < otherWordIndex + 1) {
-				if (ownWordIndex + 1 < 0) {
-					throw new IndexOutOfBoundsException();
-				}
-
-				otherLine.words = LineParser.getWords(otherLine, otherWordIndex + 1);
-
-				if (otherLine.words.length <= otherWordIndex) {
-					allWordsParsed = true;
-				}
-			}
-		}
+		// Make sure the words of both lines are parsed until the words' indexes.
+		parseWords(ownWordIndex + 1);
+		otherLine.parseWords(otherWordIndex + 1);
 
 		// Will throw an "IndexOutOfBoundsException" in case the word count is smaller.
 		// It is annotated that it can throw it.
-		Word ownWord = words[ownWordIndex], otherWord = otherLine.words[otherWordIndex];
+		final int ownStart = words.getStartOffset(ownWordIndex), ownEnd = words.getEndOffset(ownWordIndex);
+		final int otherStart = otherLine.words.getStartOffset(otherWordIndex), otherEnd = otherLine.words.getEndOffset(otherWordIndex);
 
 		// Calculate the delta of the word lengths.
-		final int delta = otherWord.getLength() - ownWord.getLength();
-
-		String ownWordString = ownWord.getWord(line), otherWordString = otherWord.getWord(otherLine.line);
+		final int delta = (otherEnd - otherStart) - (ownEnd - ownStart);
 
 		// When delta is not equal to zero (0), the two words cannot be equal.
 		if (delta == 0) {
-			if (ownWordString.equals(otherWordString)) {
+			if (extract(ownWordIndex).equals(otherLine.extract(otherWordIndex))) {
 				return;
 			}
 		}
 
-		{
-			// Create new string builder with capacity equal to the string's length plus the delta.
-			StringBuilder ownBuilder = new StringBuilder(line.length() + delta);
-
-			ownBuilder.append(line.substring(0, ownWord.getStartOffset()));
-
-			ownBuilder.append(otherWordString);
-			// Not needed anymore.
-			otherWordString = null;
+		// Exchange the pieces of the two words. Both lines are built from their previous pieces.
+		PieceTable ownPieces = getPieces(), otherPieces = otherLine.getPieces();
 
-			ownBuilder.append(line.substring(ownWord.getEndOffset()));
-
-			line = ownBuilder.toString();
-
-			// Free the string builder.
-		}
+		setPieces(ownPieces.replace(ownStart, ownEnd, otherPieces, otherStart, otherEnd));
+		otherLine.setPieces(otherPieces.replace(otherStart, otherEnd, ownPieces, ownStart, ownEnd));
 
 		// Adjust the offsets of the words after the word, if any.
 		// The words' offsets before it will stay correct.
-		for (int z = ownWordIndex + 1; z < words.length; ++z) {
-			words[z].offsetWord(delta);
-		}
-
-		{
-			// Create new string builder with capacity equal to the string's length plus the delta.
-			StringBuilder otherBuilder = new StringBuilder(otherLine.line.length() - delta);
-
-			otherBuilder.append(otherLine.line.substring(0, otherWord.getStartOffset()));
-
-			otherBuilder.append(ownWordString);
-			// Not needed anymore.
-			ownWordString = null;
-
-			otherBuilder.append(otherLine.line.substring(otherWord.getEndOffset()));
-
-			otherLine.line = otherBuilder.toString();
-
-			// Free the string builder.
-		}
+		words.offsetWords(ownWordIndex + 1, words.size(), delta);
 
 		// Adjust the offsets of the words after the word, if any.
 		// The words' offsets before it will stay correct.
-		for (int z = otherWordIndex + 1; z < otherLine.words.length; ++z) {
-			otherLine.words[z].offsetWord(-delta);
-		}
+		otherLine.words.offsetWords(otherWordIndex + 1, otherLine.words.size(), -delta);
 
-		ownWord.swapLengths(otherWord);
+		words.swapLengths(ownWordIndex, otherLine.words, otherWordIndex);
 	}
 
 	/**
@@ -357,8 +422,239 @@ public final class Line {
 		}
 	}
 
+	/**
+	 * Replaces all words of the given lines at once with words of the same or other lines, keeping the text between the words.
+	 * The new content of every line is built in a single pass from the pieces of the lines, together with it's words,
+	 * before any of the lines is changed, so the words can be moved between the lines in any way (e.g.: the result of many swaps composed together).
+	 * All lines must use the same tokenizer.
+	 * @param lines The lines whose words are replaced, each at most once.
+	 * @param sourceLines For each of the lines, the line containing each of it's new words, one for each of it's current words.
+	 * @param sourceWords For each of the lines, the index of each of it's new words in the line containing it.
+	 * @throws IndexOutOfBoundsException Thrown when any of the word indexes are out of bounds.
+	 * @throws IllegalArgumentException Thrown when the count of new words of a line is not the same as it's word count.
+	 */
+	public static void replaceWords(Line[] lines, Line[][] sourceLines, int[][] sourceWords) throws IndexOutOfBoundsException, IllegalArgumentException {
+		PieceTable[] contents = new PieceTable[lines.length];
+		WordIndex[] indexes = new WordIndex[lines.length];
+
+		// Lines stored as ASCII or as a string are turned into pieces only once, no matter how many words are taken from them.
+		IdentityHashMap<Line, PieceTable> pieces = new IdentityHashMap<Line, PieceTable>();
+
+		for (int z = 0; z < lines.length; ++z) {
+			Line line = lines[z];
+
+			final int count = line.wordCount();
+
+			if (sourceLines[z].length != count || sourceWords[z].length != count) {
+				throw new IllegalArgumentException("Each word of the line must be replaced!");
+			}
+
+			int[] words = new int[count * 2];
+
+			contents[z] = line.buildWords(sourceLines[z], sourceWords[z], pieces, words);
+			indexes[z] = new WordIndex(line.words.getTokenizer(), words, count);
+		}
+
+		// All new contents were built from the old ones, so the lines can be changed now.
+		for (int z = 0; z < lines.length; ++z) {
+			lines[z].setWords(contents[z], indexes[z]);
+		}
+	}
+
+	/**
+	 * Moves all words of the line at once, so that each word index gets the word which was at the given index before.
+	 * The text between the words stays in place. The new pieces and the words are built together in a single pass.
+	 * @param order For each word index, the index of the word which is moved to it. It must contain every word index exactly once.
+	 * @throws IllegalArgumentException Thrown when the array is not a permutation of the word indexes, in which case nothing is changed.
+	 */
+	public void permuteWords(int[] order) throws IllegalArgumentException {
+		final int count = wordCount();
+
+		if (order.length != count) {
+			throw new IllegalArgumentException("There must be an index for every word!");
+		}
+
+		boolean[] seen = new boolean[count];
+		boolean moved = false;
+
+		for (int z = 0; z < count; ++z) {
+			final int word = order[z];
+
+			if (word < 0 || count <= word || seen[word]) {
+				throw new IllegalArgumentException("Every word index must be present exactly once!");
+			}
+
+			seen[word] = true;
+			moved |= word != z;
+		}
+
+		if (!moved) {
+			return;
+		}
+
+		int[] words = new int[count * 2];
+
+		setWords(buildWords(null, order, null, words), new WordIndex(this.words.getTokenizer(), words, count));
+	}
+
+	/**
+	 * Reverses the order of the words of the line.
+	 */
+	public void reverseWords() {
+		int[] order = new int[wordCount()];
+
+		for (int z = 0; z < order.length; ++z) {
+			order[z] = order.length - 1 - z;
+		}
+
+		permuteWords(order);
+	}
+
+	/**
+	 * Rotates the words of the line, the same as {@link java.util.Collections#rotate} does.
+	 * The word at index {@code i} is moved to index {@code (i + distance) mod wordCount()}.
+	 * @param distance The distance by which the words are moved towards the end, which can be negative to move them towards the beginning.
+	 */
+	public void rotateWords(int distance) {
+		int[] order = new int[wordCount()];
+
+		if (order.length == 0) {
+			return;
+		}
+
+		final int shift = Math.floorMod(distance, order.length);
+
+		for (int z = 0; z < order.length; ++z) {
+			order[z] = z < shift ? z - shift + order.length : z - shift;
+		}
+
+		permuteWords(order);
+	}
+
+	/**
+	 * Sorts the words of the line in the given order, keeping the order of the words which are equal by it.
+	 * @param order The order.
+	 */
+	public void sortWords(WordOrder order) {
+		final int count = wordCount();
+		final CharSequence content = getContent();
+
+		Integer[] indexes = new Integer[count];
+
+		for (int z = 0; z < count; ++z) {
+			indexes[z] = z;
+		}
+
+		if (order == WordOrder.LENGTH) {
+			Arrays.sort(indexes, (Integer first, Integer second) -> Integer.compare(words.getLength(first), words.getLength(second)));
+		} else if (content instanceof PieceTable) {
+			final PieceTable pieces = (PieceTable) content;
+
+			int[] startPieces = new int[count];
+
+			// Words are never empty, so each of them begins in a piece. Found once instead of for every comparison.
+			for (int z = 0; z < count; ++z) {
+				startPieces[z] = pieces.pieceAt(words.getStartOffset(z));
+			}
+
+			Arrays.sort(indexes, (Integer first, Integer second) -> pieces.compareRanges(
+				words.getStartOffset(first), words.getEndOffset(first), startPieces[first],
+				words.getStartOffset(second), words.getEndOffset(second), startPieces[second]
+			));
+		} else {
+			Arrays.sort(indexes, (Integer first, Integer second) -> compareWords(content, first, second));
+		}
+
+		int[] sorted = new int[count];
+
+		for (int z = 0; z < count; ++z) {
+			sorted[z] = indexes[z];
+		}
+
+		permuteWords(sorted);
+	}
+
+	/**
+	 * Compares two words of the line lexicographically, the same as {@link String#compareTo} does, without extracting them.
+	 * @param content The content of the line.
+	 * @param first Index of the first word.
+	 * @param second Index of the second word.
+	 * @return Zero when the words are equal, a negative integer when the first one comes first, or a positive integer otherwise.
+	 */
+	private int compareWords(CharSequence content, int first, int second) {
+		final int firstStart = words.getStartOffset(first), firstLength = words.getLength(first);
+		final int secondStart = words.getStartOffset(second), secondLength = words.getLength(second);
+
+		for (int z = 0; z < firstLength && z < secondLength; ++z) {
+			final char firstCharacter = content.charAt(firstStart + z), secondCharacter = content.charAt(secondStart + z);
+
+			if (firstCharacter != secondCharacter) {
+				return firstCharacter - secondCharacter;
+			}
+		}
+
+		return firstLength - secondLength;
+	}
+
+	/**
+	 * Builds the pieces of the line with each of it's words replaced, keeping the text between the words, without changing the line.
+	 * The pieces of the words and of the text between them are relinked, so no characters are copied.
+	 * All words of the line must be parsed already.
+	 * @param sourceLines The line containing each of the new words, or null when they are all words of this line.
+	 * @param sourceWords The index of each of the new words in the line containing it.
+	 * @param pieces The pieces of the lines turned into pieces so far, or null when the words are all words of this line.
+	 * @param words The array to which the offset and the length of each new word are stored next to each other.
+	 * @return A non-null reference to the new pieces.
+	 * @throws IndexOutOfBoundsException Thrown when any of the word indexes are out of bounds.
+	 */
+	private PieceTable buildWords(Line[] sourceLines, int[] sourceWords, IdentityHashMap<Line, PieceTable> pieces, int[] words) throws IndexOutOfBoundsException {
+		final PieceTable content = pieces == null ? getPieces() : pieces.computeIfAbsent(this, Line::getPieces);
+		final int count = this.words.size();
+
+		PieceTable.Builder builder = new PieceTable.Builder();
+		int previousEnd = 0;
+
+		for (int z = 0; z < count; ++z) {
+			Line source = sourceLines == null ? this : sourceLines[z];
+
+			final int word = sourceWords[z];
+
+			// Make sure the source line is parsed until the word, in case it is another line.
+			source.parseWords(word + 1);
+
+			builder.append(content, previousEnd, this.words.getStartOffset(z));
+
+			words[z * 2] = builder.length();
+			builder.append(source == this ? content : pieces.computeIfAbsent(source, Line::getPieces), source.words.getStartOffset(word), source.words.getEndOffset(word));
+			words[z * 2 + 1] = builder.length() - words[z * 2];
+
+			previousEnd = this.words.getEndOffset(z);
+		}
+
+		builder.append(content, previousEnd, content.length());
+
+		return builder.build();
+	}
+
+	/**
+	 * Replaces the pieces of the line and all of it's words, unless the content stays the same.
+	 * Lines whose words were only exchanged with equal ones keep their content and original bytes.
+	 * @param content The new pieces.
+	 * @param words The words of the new content.
+	 */
+	private void setWords(PieceTable content, WordIndex words) {
+		if (content.contentEquals(getContent())) {
+			return;
+		}
+
+		setPieces(content);
+
+		this.words = words;
+		allWordsParsed = true;
+	}
+
 	@Override
 	public String toString() {
-		return line;
+		return getLine();
 	}
 }
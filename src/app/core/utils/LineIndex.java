@@ -0,0 +1,161 @@
+package app.core.utils;
+
+import java.util.Arrays;
+
+/**
+ * Represents a compact index of the byte offsets at which the lines of a file begin.
+ * Only the lower 32 bits of every offset are stored. The upper bits are recovered from the (rare) line indexes
+ * at which they change, so every line costs four bytes no matter how big the file is.
+ */
+public final class LineIndex {
+	private static final int initialCapacity;
+
+	private int[] starts;
+	private int size;
+
+	// Contains one entry for every time the upper 32 bits of the offsets were incremented.
+	// Each entry holds the index of the first line which has the incremented value.
+	private int[] wraps;
+	private int wrapCount;
+
+	private long lastStart;
+	private long fileSize;
+
+	static {
+		initialCapacity = 1024;
+	}
+
+	/**
+	 * Creates an empty index.
+	 */
+	LineIndex() {
+		super();
+
+		starts = new int[initialCapacity];
+		size = 0;
+
+		wraps = new int[4];
+		wrapCount = 0;
+
+		lastStart = 0;
+		fileSize = 0;
+	}
+
+	/**
+	 * Appends the offset of the next line.
+	 * @param start The offset at which the line begins.
+	 * @throws IllegalArgumentException Thrown when the offset is less than the one of the previous line.
+	 */
+	void add(long start) throws IllegalArgumentException {
+		if (start < lastStart) {
+			throw new IllegalArgumentException("Line offsets must be added in ascending order!");
+		}
+
+		for (long high = lastStart >>> 32; high < (start >>> 32); ++high) {
+			if (wrapCount == wraps.length) {
+				wraps = Arrays.copyOf(wraps, wraps.length * 2);
+			}
+
+			wraps[wrapCount++] = size;
+		}
+
+		if (size == starts.length) {
+			starts = Arrays.copyOf(starts, starts.length + (starts.length >> 1));
+		}
+
+		starts[size++] = (int) start;
+		lastStart = start;
+	}
+
+	/**
+	 * Removes the offset of the last line.
+	 */
+	void removeLast() {
+		--size;
+
+		while (wrapCount != 0 && wraps[wrapCount - 1] >= size) {
+			--wrapCount;
+		}
+
+		lastStart = size == 0 ? 0 : getStart(size - 1);
+	}
+
+	/**
+	 * Appends the offsets of all lines of another index.
+	 * @param other The index whose offsets are appended.
+	 * @throws IllegalArgumentException Thrown when the offsets of the other index are less than the ones in this index.
+	 */
+	void addAll(LineIndex other) throws IllegalArgumentException {
+		for (int z = 0; z < other.size; ++z) {
+			add(other.getStart(z));
+		}
+	}
+
+	/**
+	 * Sets the size of the indexed file which is also the end offset of the last line.
+	 * @param fileSize The size of the file in bytes.
+	 */
+	void setFileSize(long fileSize) {
+		this.fileSize = fileSize;
+	}
+
+	/**
+	 * Gets the count of the indexed lines.
+	 * @return A positive integer representing the line count.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Gets the size of the indexed file.
+	 * @return A positive integer representing the size of the file in bytes.
+	 */
+	public long getFileSize() {
+		return fileSize;
+	}
+
+	/**
+	 * Gets the offset at which the given line begins.
+	 * @param line Index of the line.
+	 * @return A positive integer representing the offset into the file.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	public long getStart(int line) throws IndexOutOfBoundsException {
+		if (line < 0 || size <= line) {
+			throw new IndexOutOfBoundsException(line);
+		}
+
+		// Count the increments which happened at or before the given line.
+		int low = 0, high = wrapCount;
+
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+
+			if (wraps[middle] <= line) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+
+		return ((long) low << 32) | (starts[line] & 0xFFFFFFFFL);
+	}
+
+	/**
+	 * Gets the offset just after the given line's end, excluding the line feed character.
+	 * @param line Index of the line.
+	 * @return A positive integer representing the offset into the file.
+	 * @throws IndexOutOfBoundsException Thrown when the line index is out of bounds.
+	 */
+	public long getEnd(int line) throws IndexOutOfBoundsException {
+		if (line + 1 < size) {
+			return getStart(line + 1) - 1;
+		}
+
+		// Make sure the index is checked.
+		getStart(line);
+
+		return fileSize;
+	}
+}
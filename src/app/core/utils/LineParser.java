@@ -1,20 +1,25 @@
 package app.core.utils;
 
-import java.util.ArrayList;
-import java.util.regex.MatchResult;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Arrays;
 
 /**
- * This is a utility class that parses words from a given string and returns an array of their representations.
+ * This is a utility class that parses words from a given string and returns an index of their offsets and lengths.
+ * The words are found by a tokenizer (see {@link Tokenizer}), which is {@link AsciiWordTokenizer} by default.
  * 
  * This class is not extendable nor instanciatable as it is only a single function utility class.
  */
 final class LineParser {
-	private static final Pattern wordPattern;
-	
+	private static final int initialBufferSize;
+	private static final int maxRetainedBufferSize;
+
+	// Offsets and lengths of the words found by the last call on each thread, before they are copied to an index of the right size.
+	private static final ThreadLocal<int[]> buffers;
+
 	static {
-		wordPattern = Pattern.compile("\\d*(?!\\d)\\w+", Pattern.UNICODE_CASE);
+		initialBufferSize = 1 << 6;
+		maxRetainedBufferSize = 1 << 16;
+
+		buffers = ThreadLocal.withInitial(() -> new int[initialBufferSize]);
 	}
 
 	/**
@@ -26,44 +31,108 @@ final class LineParser {
 	}
 
 	/**
-	 * Generates an array of all words, if any.
-	 * @param line The line which will be used to generate the words array.
-	 * @return A non-null reference to the array.
+	 * Generates an index of all words, if any.
+	 * @param line The line which will be used to generate the words index.
+	 * @return A non-null reference to the index.
+	 */
+	static WordIndex getWords(Line line) {
+		return getWords(line, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Counts the words without collecting them.
+	 * @param line The line whose words are counted.
+	 * @param tokenizer The tokenizer which finds the words.
+	 * @return A positive integer representing the word count.
 	 */
-	static Word[] getWords(Line line) {
-		Matcher matcher = wordPattern.matcher(line.getLine());
+	static int countWords(Line line, Tokenizer tokenizer) {
+		CharSequence content = line.getContent();
 
-		ArrayList<Word> list = new ArrayList<Word>();
+		int[] buffer = buffers.get();
+		final int batchSize = buffer.length / 2;
 
-		while (matcher.find()) {
-			final int start = matcher.start();
+		int count = 0;
 
-			list.add(new Word(start, matcher.end() - start));
-		}
+		// Only the end of the last word of each batch is needed.
+		for (int from = 0;;) {
+			final int found = tokenizer.tokenize(content, from, buffer, 0, batchSize);
 
-		return list.toArray(Word[]::new);
+			count += found;
+
+			if (found < batchSize) {
+				return count;
+			}
+
+			from = buffer[found * 2 - 2] + buffer[found * 2 - 1];
+		}
 	}
 
 	/**
-	 * Generates an array of at most {@code maxCount} number of words, if any.
-	 * @param line The line which will be used to generate the words array.
+	 * Generates an index of at most {@code maxCount} number of words, if any, found by the default tokenizer.
+	 * @param line The line which will be used to generate the words index.
 	 * @param maxCount The maximum amount of words to be parsed.
-	 * @return A non-null reference to the array.
+	 * @return A non-null reference to the index.
 	 * @throws IllegalArgumentException Thrown when {@code maxCount} is a negative number.
 	 */
-	static Word[] getWords(Line line, int maxCount) throws IllegalArgumentException {
-		Matcher matcher = wordPattern.matcher(line.getLine());
+	static WordIndex getWords(Line line, int maxCount) throws IllegalArgumentException {
+		return getWords(line, WordIndex.empty(), maxCount);
+	}
 
-		ArrayList<Word> list = new ArrayList<Word>();
+	/**
+	 * Continues parsing after the given words, which were parsed before, until there are at most {@code maxCount} words in total.
+	 * The words are found by the same tokenizer as the ones parsed before.
+	 * @param line The line which will be used to generate the words index.
+	 * @param parsed The words of the line which were parsed before, in order, whose offsets match the current content.
+	 * @param maxCount The maximum amount of words, including the ones parsed before.
+	 * @return A non-null reference to the index containing the words parsed before followed by the new ones, which is
+	 * {@code parsed} itself unless it was empty.
+	 * @throws IllegalArgumentException Thrown when {@code maxCount} is a negative number.
+	 */
+	static WordIndex getWords(Line line, WordIndex parsed, int maxCount) throws IllegalArgumentException {
+		if (maxCount < 0) {
+			throw new IllegalArgumentException(Integer.toString(maxCount));
+		}
+
+		CharSequence content = line.getContent();
+		Tokenizer tokenizer = parsed.getTokenizer();
+
+		int[] buffer = buffers.get();
+		int count = 0;
+
+		// Tokens never continue after the end of a token, so parsing can resume right after the last word.
+		int from = parsed.size() == 0 ? 0 : parsed.getEndOffset(parsed.size() - 1);
+
+		while (parsed.size() + count < maxCount) {
+			if (count * 2 == buffer.length) {
+				buffer = Arrays.copyOf(buffer, buffer.length * 2);
+
+				if (buffer.length <= maxRetainedBufferSize) {
+					buffers.set(buffer);
+				}
+			}
+
+			final int wanted = Math.min(maxCount - parsed.size() - count, buffer.length / 2 - count);
+			final int found = tokenizer.tokenize(content, from, buffer, count * 2, wanted);
 
-		matcher.results().limit(maxCount).forEach(
-			(MatchResult result) -> {
-				final int start = matcher.start();
+			count += found;
 
-				list.add(new Word(start, matcher.end() - start));
+			if (found < wanted) {
+				break;
 			}
-		);
 
-		return list.toArray(Word[]::new);
+			from = buffer[count * 2 - 2] + buffer[count * 2 - 1];
+		}
+
+		if (count == 0) {
+			return parsed;
+		}
+
+		if (parsed.size() == 0) {
+			return new WordIndex(tokenizer, buffer, count);
+		}
+
+		parsed.addAll(buffer, count);
+
+		return parsed;
 	}
 }
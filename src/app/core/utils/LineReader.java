@@ -1,79 +1,425 @@
 package app.core.utils;
 
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Utility class for reading files line by line.
  * This is more reliable for line-by-line reading than {@link java.util.Scanner} because it doesn't ignore the last line.
+ * The file is read and decoded in big blocks and the lines are sliced directly out of the decoded characters.
  */
-public final class LineReader {
-	private final FileReader input;
+public final class LineReader implements AutoCloseable {
+	private static final int bufferSize;
+	private static final int boundaryBufferSize;
+	private static final long minimalSplitSize;
+	private static final int arenaSize;
+	private static final int maxAsciiLineLength;
+
+	private final FileChannel input;
+	private final boolean ownsInput;
+	private final CharsetDecoder decoder;
+
+	// Cleared once the file is shared with other readers, after which it is only closed through "close".
+	private boolean closeWhenFinished;
+
+	// The range of the file which is read.
+	private long position;
+	private long end;
+
+	// Read mode buffers: "bytes" holds the bytes which are not decoded yet and "chars" the decoded characters which are not returned yet.
+	private final ByteBuffer bytes;
+	private CharBuffer chars;
+
+	private boolean inputDrained;
+	private boolean flushing;
+	private boolean endOfInput;
 	private boolean finished;
-	
+
+	// Collects the offsets of the lines while the bytes are read, when the charset allows it. Otherwise, it's a null reference.
+	private final LineIndex index;
+	private int lineNumber;
+
+	// The shared array into which the short lines consisting only of ASCII characters are copied, and how much of it is used.
+	private byte[] arena;
+	private int arenaUsed;
+
+	static {
+		bufferSize = 1 << 18;
+		boundaryBufferSize = 1 << 13;
+		minimalSplitSize = 1 << 20;
+		arenaSize = 1 << 16;
+		maxAsciiLineLength = 1 << 12;
+	}
+
 	/**
-	 * Creates new instance of the class while opening the specified file for reading.
-	 * @param filename
-	 * @throws FileNotFoundException
-	 * @throws SecurityException
+	 * Creates new instance of the class while opening the specified file for reading with the platform's default charset.
+	 * @param filename Absolute or relative path to the file.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
 	 */
 	public LineReader(String filename) throws FileNotFoundException, SecurityException {
+		this(filename, Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates new instance of the class while opening the specified file for reading.
+	 * @param filename Absolute or relative path to the file.
+	 * @param charset The charset used to decode the file's content.
+	 * Malformed and unmappable input is replaced the same way {@link java.io.FileReader} does it.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 */
+	public LineReader(String filename, Charset charset) throws FileNotFoundException, SecurityException {
+		this(new FileInputStream(filename).getChannel(), true, 0, Long.MAX_VALUE, charset);
+	}
+
+	/**
+	 * Creates new instance of the class reading only the given range of an already opened file.
+	 * The file is not closed when the reader is finished.
+	 * @param input The opened file. It's position is not changed, so multiple readers can share it.
+	 * @param start The offset at which reading begins. It is assumed to be the beginning of a line.
+	 * @param end The offset at which reading stops.
+	 * @param charset The charset used to decode the file's content.
+	 */
+	LineReader(FileChannel input, long start, long end, Charset charset) {
+		this(input, false, start, end, charset);
+	}
+
+	/**
+	 * Base constructor of the class.
+	 * @param input The opened file.
+	 * @param ownsInput Whether the file is closed when the reader is finished.
+	 * @param start The offset at which reading begins.
+	 * @param end The offset at which reading stops.
+	 * @param charset The charset used to decode the file's content.
+	 */
+	private LineReader(FileChannel input, boolean ownsInput, long start, long end, Charset charset) {
 		super();
 
-		input = new FileReader(filename);
+		this.input = input;
+		this.ownsInput = ownsInput;
+		this.closeWhenFinished = ownsInput;
+		this.position = start;
+		this.end = end;
+
+		decoder = charset.newDecoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+		bytes = ByteBuffer.allocate(bufferSize);
+		chars = CharBuffer.allocate((int) (bufferSize * decoder.maxCharsPerByte()));
+
+		// Both buffers start in read mode without any content.
+		bytes.flip();
+		chars.flip();
+
+		inputDrained = false;
+		flushing = false;
+		endOfInput = false;
 		finished = false;
+
+		if (encodesLineBreaksAsBytes(charset)) {
+			index = new LineIndex();
+
+			index.add(start);
+		} else {
+			index = null;
+		}
+
+		lineNumber = 0;
+
+		arena = null;
+		arenaUsed = 0;
 	}
 
 	/**
 	 * Read one line of the file.
+	 * The line ends with a line feed (LF) character, which is not included, or when End-Of-File (EOF) is reached.
+	 * Carriage return (CR) characters are not included and neither are the characters right after them.
 	 * @return A line from the file or a null reference when the file is marked as finished.
+	 * @throws IOException Thrown when the file couldn't be read.
 	 */
 	public Line getLine() throws IOException {
 		if (isFinished()) {
 			return null;
-		} else {
-			StringBuilder line = new StringBuilder();
-
-			int c;
-			
-			while (true) {
-				c = input.read();
-
-				if (c == -1) {
-					setFinished();
-					
-					break;
-				} else if ((char) c == '\n') {
-					break;
-				} else {
-					if ((char) c == '\r') {
-						c = input.read();
-
-						if (c == -1) {
-							setFinished();
-							
-							break;
-						} else if ((char) c == '\n') {
-							break;
-						}
+		}
+
+		// The characters before this offset are already checked for line feed (LF) characters.
+		int scanned = chars.position();
+
+		while (true) {
+			final char[] array = chars.array();
+			final int position = chars.position(), limit = chars.limit();
+
+			for (int z = scanned; z < limit; ++z) {
+				if (array[z] == '\n') {
+					chars.position(z + 1);
+
+					return numbered(toCompactLine(array, position, z - position));
+				}
+			}
+
+			if (endOfInput) {
+				chars.position(limit);
+
+				setFinished();
+
+				return numbered(toCompactLine(array, position, limit - position));
+			}
+
+			// After the buffer is compacted the unchecked characters begin right after the already checked ones.
+			scanned = limit - position;
+
+			fill();
+		}
+	}
+
+	/**
+	 * Creates a line from the given characters, storing it as bytes in the shared array when it is short and consists only of ASCII characters.
+	 * This saves a string object and a separate array for every such line.
+	 * @param array The array containing the characters.
+	 * @param offset The offset at which the line begins.
+	 * @param length The length of the line.
+	 * @return A non-null reference to the line.
+	 */
+	private Line toCompactLine(char[] array, int offset, int length) {
+		if (length == 0 || maxAsciiLineLength < length) {
+			return toLine(array, offset, length);
+		}
+
+		if (arena == null || arena.length - arenaUsed < length) {
+			arena = new byte[arenaSize];
+			arenaUsed = 0;
+		}
+
+		// Copy while checking, as the copied bytes are simply not used when the check fails.
+		for (int z = 0; z < length; ++z) {
+			final char character = array[offset + z];
+
+			// Carriage return (CR) characters are handled by "toLine".
+			if (character >= 0x80 || character == '\r') {
+				return toLine(array, offset, length);
+			}
+
+			arena[arenaUsed + z] = (byte) character;
+		}
+
+		Line line = new Line(arena, arenaUsed, length);
+
+		arenaUsed += length;
+
+		return line;
+	}
+
+	/**
+	 * Sets the index of the given line into the range read by this reader.
+	 * @param line The line which is returned next.
+	 * @return The same line.
+	 */
+	private Line numbered(Line line) {
+		line.setSourceLine(lineNumber++);
+
+		return line;
+	}
+
+	/**
+	 * Moves the characters which are not returned yet to the beginning of the buffer and decodes the next block of the file after them.
+	 * The buffer grows when a line is longer than it can hold.
+	 * @throws IOException Thrown when the file couldn't be read.
+	 */
+	private void fill() throws IOException {
+		chars.compact();
 
-						// '\r' (CR) is a special character so it shouldn't be added to the string.
-						continue;
+		// A single code point may be decoded into a surrogate pair, which the decoder never splits.
+		if (chars.remaining() < 2) {
+			CharBuffer larger = CharBuffer.allocate(chars.capacity() * 2);
+
+			chars.flip();
+			larger.put(chars);
+
+			chars = larger;
+		}
+
+		bytes.compact();
+
+		if (!inputDrained) {
+			final int limit = bytes.limit();
+
+			// Make sure nothing after the end of the range is read.
+			if (end - position < bytes.remaining()) {
+				bytes.limit(bytes.position() + (int) (end - position));
+			}
+
+			final int offset = bytes.position();
+			final int read = position == end ? -1 : (bytes.hasRemaining() ? input.read(bytes, position) : 0);
+
+			if (read == -1) {
+				inputDrained = true;
+
+				if (index != null) {
+					index.setFileSize(position);
+				}
+			} else {
+				if (index != null) {
+					final byte[] array = bytes.array();
+
+					for (int z = offset; z < offset + read; ++z) {
+						if (array[z] == '\n') {
+							index.add(position + (z - offset) + 1);
+						}
 					}
+				}
+
+				position += read;
+			}
+
+			bytes.limit(limit);
+		}
+
+		bytes.flip();
+
+		if (inputDrained) {
+			CoderResult result = flushing ? CoderResult.UNDERFLOW : decoder.decode(bytes, chars, true);
+
+			if (result.isUnderflow()) {
+				flushing = true;
+
+				if (decoder.flush(chars).isUnderflow()) {
+					endOfInput = true;
+				}
+			}
+		} else {
+			decoder.decode(bytes, chars, false);
+		}
+
+		chars.flip();
+	}
+
+	/**
+	 * Creates a stream of the lines which are not read yet.
+	 * Closing the stream closes the reader, so it is best used within a try-with-resources statement.
+	 * When the charset encodes line breaks as single bytes, the stream can be split into byte ranges of whole lines
+	 * which are decoded independently, therefore making {@code parallel} useful.
+	 * @return A non-null reference to the new stream.
+	 * @apiNote The reader must not be used directly while the stream is in use.
+	 * Lines coming from a split part of the stream have source line indexes relative to the beginning of that part.
+	 */
+	public Stream<Line> lines() {
+		return StreamSupport.stream(new LineSpliterator(this, false), false).onClose(() -> {
+			try {
+				close();
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		});
+	}
+
+	/**
+	 * Finds the offset just after the first line feed (LF) at or after the given offset.
+	 * @param input The opened file.
+	 * @param offset The offset from which the search begins.
+	 * @param end The offset at which the search stops.
+	 * @return The offset of the next line's beginning or {@code end}, when there are no more lines before it.
+	 * @throws IOException Thrown when the file couldn't be read.
+	 */
+	static long nextLineStart(FileChannel input, long offset, long end) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(boundaryBufferSize);
+
+		while (offset < end) {
+			buffer.clear();
 
-					line.append((char) c);
+			if (end - offset < buffer.capacity()) {
+				buffer.limit((int) (end - offset));
+			}
+
+			final int read = input.read(buffer, offset);
+
+			if (read == -1) {
+				break;
+			}
+
+			for (int z = 0; z < read; ++z) {
+				if (buffer.get(z) == '\n') {
+					return offset + z + 1;
 				}
-			};
+			}
 
-			if (line.isEmpty()) {
-				return Line.empty();
+			offset += read;
+		}
+
+		return end;
+	}
+
+	/**
+	 * Checks whether the line feed (LF) and carriage return (CR) characters are encoded as single bytes by the given charset,
+	 * which allows lines to be found in the file without decoding it.
+	 * @param charset The charset to be checked.
+	 * @return True when lines can be found by searching for bytes. Otherwise, false.
+	 */
+	static boolean encodesLineBreaksAsBytes(Charset charset) {
+		if (!charset.canEncode()) {
+			return false;
+		}
+
+		return Arrays.equals("\r\n".getBytes(charset), new byte[] { '\r', '\n' });
+	}
+
+	/**
+	 * Creates a line from raw characters the same way {@code getLine} does, meaning that every carriage return (CR)
+	 * is dropped together with the character following it.
+	 * @param array The array holding the characters of the line, without the terminating line feed (LF).
+	 * @param offset The offset of the line into the array.
+	 * @param length The length of the line.
+	 * @return A non-null reference to the new line.
+	 */
+	static Line toLine(char[] array, int offset, int length) {
+		if (length == 0) {
+			return Line.empty();
+		}
+
+		final int end = offset + length;
+
+		StringBuilder line = null;
+		int copied = offset;
+
+		for (int z = offset; z < end; ++z) {
+			if (array[z] == '\r') {
+				if (line == null) {
+					line = new StringBuilder(length);
+				}
+
+				line.append(array, copied, z - copied);
+
+				// '\r' (CR) is a special character so it is skipped along with the character after it.
+				copied = Math.min(++z + 1, end);
 			}
+		}
+
+		if (line == null) {
+			// Will not throw "IllegalArgumentException" as the caller passes characters until the end of the line.
+			return new Line(new String(array, offset, length));
+		}
+
+		line.append(array, copied, end - copied);
 
-			// Will not throw "IllegalArgumentException" as this class parses until the end of the line.
-			return new Line(line.toString());
+		if (line.isEmpty()) {
+			return Line.empty();
 		}
+
+		return new Line(line.toString());
 	}
 
 	/**
@@ -90,6 +436,23 @@ public final class LineReader {
 		return list;
 	}
 
+	/**
+	 * Gets the index of the byte offsets of the lines read by this reader.
+	 * It is complete only after the reader is finished.
+	 * @return A reference to the index or a null reference when the charset doesn't encode line breaks as single bytes.
+	 */
+	public LineIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the offset up to which the file has been read so far.
+	 * @return A positive integer representing the offset into the file.
+	 */
+	public long getPosition() {
+		return position;
+	}
+
 	/**
 	 * Checks the state of the reader.
 	 * @return True when reader has not encountered End-Of-File (EOF). Otherwise, false.
@@ -99,12 +462,126 @@ public final class LineReader {
 	}
 
 	/**
-	 * Marks the reader's state as "finished" (see {@code isFinished}) and closes the file.
+	 * Marks the reader's state as "finished" (see {@code isFinished}) and closes the file, when it was opened by the reader.
 	 * @throws IOException Thrown when the file couldn't be closed properly.
 	 */
 	private void setFinished() throws IOException {
 		finished = true;
 
-		input.close();
+		if (closeWhenFinished) {
+			input.close();
+		}
+	}
+
+	/**
+	 * Marks the reader's state as "finished" (see {@code isFinished}) and closes the file, when it was opened by the reader.
+	 * @throws IOException Thrown when the file couldn't be closed properly.
+	 */
+	@Override
+	public void close() throws IOException {
+		finished = true;
+
+		if (ownsInput) {
+			input.close();
+		}
+	}
+
+	/**
+	 * Represents the traversal of the lines of a reader's range.
+	 * Splitting hands the current reader over to the returned spliterator and continues with a new reader for the second half of the range.
+	 */
+	private static final class LineSpliterator implements Spliterator<Line> {
+		private LineReader reader;
+
+		// Whether the range ends at the beginning of another spliterator's range.
+		private boolean hasSuccessor;
+
+		/**
+		 * Creates new instance of the class traversing the given reader.
+		 * @param reader The reader which is traversed.
+		 * @param hasSuccessor Whether the range of the reader ends at the beginning of another spliterator's range.
+		 */
+		LineSpliterator(LineReader reader, boolean hasSuccessor) {
+			super();
+
+			this.reader = reader;
+			this.hasSuccessor = hasSuccessor;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Line> action) {
+			try {
+				Line line = reader.getLine();
+
+				if (line == null) {
+					return false;
+				}
+
+				// A range ending with a line feed (LF) is followed by an empty line which actually belongs to the successor.
+				if (hasSuccessor && reader.isFinished()) {
+					return false;
+				}
+
+				action.accept(line);
+
+				return true;
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		@Override
+		public Spliterator<Line> trySplit() {
+			if (reader.isFinished() || !encodesLineBreaksAsBytes(reader.decoder.charset())) {
+				return null;
+			}
+
+			try {
+				final long from = reader.position;
+				final long to = Math.min(reader.end, reader.input.size());
+
+				if (to - from < minimalSplitSize) {
+					return null;
+				}
+
+				final long middle = nextLineStart(reader.input, from + (to - from) / 2, to);
+
+				if (middle == to) {
+					return null;
+				}
+
+				LineReader prefix = reader;
+
+				// The file is now shared, so it is closed only when the stream is.
+				prefix.closeWhenFinished = false;
+				prefix.end = middle;
+
+				reader = new LineReader(prefix.input, middle, to, prefix.decoder.charset());
+
+				// The prefix now ends where this spliterator begins, while this one keeps it's successor.
+				return new LineSpliterator(prefix, true);
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+
+		@Override
+		public long estimateSize() {
+			if (reader.isFinished()) {
+				return 0;
+			}
+
+			try {
+				// Not the count of the lines but bytes, which is an upper bound (except for the trailing empty line).
+				return Math.min(reader.end, reader.input.size()) - reader.position + 1;
+			} catch (IOException exception) {
+				return Long.MAX_VALUE;
+			}
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL;
+		}
 	}
 }
@@ -0,0 +1,457 @@
+package app.core.utils;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Class for writing lines back to the file they were loaded from.
+ * Only the byte ranges of the lines which were changed are written, using the offsets collected while loading (see {@link LineIndex}).
+ * When every changed line keeps it's length in bytes, the lines are overwritten in place.
+ * Otherwise, the new content is written to a temporary file which then replaces the original one.
+ * Unchanged lines are transferred from the original file as they are and only the changed ones are encoded.
+ */
+public final class LineWriter {
+	private final String filePath;
+	private final LineIndex source;
+	private final Charset charset;
+
+	/**
+	 * Creates new instance of the class which writes to the given file.
+	 * @param filePath Absolute or relative path to the file from which the lines were loaded.
+	 * @param source The index of the file's lines at the time they were loaded or a null reference when there is no such,
+	 * in which case all lines are encoded.
+	 * @param charset The charset used to encode the changed lines.
+	 */
+	public LineWriter(String filePath, LineIndex source, Charset charset) {
+		super();
+
+		this.filePath = filePath;
+		this.source = source;
+		this.charset = charset;
+	}
+
+	/**
+	 * Writes down the given lines, separating them with line feed (LF) characters.
+	 * Lines which were not changed keep their original bytes, including carriage return (CR) characters.
+	 * @param lines The current lines.
+	 * @param dirtyLines The indexes of the lines which might differ from the ones with the same indexes in the file.
+	 * The lines at all other indexes are assumed to be the unchanged ones loaded from the file.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when the content couldn't be written.
+	 */
+	public void write(List<Line> lines, BitSet dirtyLines) throws FileNotFoundException, SecurityException, IOException {
+		final int lineCount = lines.size();
+		final int sourceCount = source == null ? 0 : source.size();
+
+		// Filter out the lines which were changed and then restored (e.g.: swapped twice).
+		BitSet changedLines = new BitSet();
+
+		if (source != null) {
+			for (int z = dirtyLines.nextSetBit(0); 0 <= z && z < lineCount; z = dirtyLines.nextSetBit(z + 1)) {
+				Line line = lines.get(z);
+
+				if (sourceCount <= z || line.getSourceLine() != z || line.isModified()) {
+					changedLines.set(z);
+				}
+			}
+
+			if (lineCount == sourceCount && changedLines.isEmpty()) {
+				return;
+			}
+		}
+
+		Path target = Paths.get(filePath).toAbsolutePath();
+		Path temporary;
+
+		try (FileChannel file = source == null ? null : new RandomAccessFile(filePath, "rw").getChannel()) {
+			if (file != null && lineCount == sourceCount && overwriteInPlace(file, lines, changedLines)) {
+				return;
+			}
+
+			temporary = createTemporaryFile(target);
+
+			try {
+				stage(file, lines, changedLines, temporary);
+			} catch (IOException | RuntimeException exception) {
+				Files.deleteIfExists(temporary);
+
+				throw exception;
+			}
+		}
+
+		// The file is replaced only when it's new content is fully written, so it is never left half-written.
+		try {
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException exception) {
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Overwrites the changed lines in place, if all of them keep their lengths in bytes.
+	 * @param file The opened file.
+	 * @param lines The current lines.
+	 * @param changedLines The indexes of the changed lines.
+	 * @return True when the lines were written. Otherwise, false.
+	 * @throws IOException Thrown when the file couldn't be read or written.
+	 */
+	private boolean overwriteInPlace(FileChannel file, List<Line> lines, BitSet changedLines) throws IOException {
+		// All lines are collected before writing, as the unchanged lines which were moved are read from the file.
+		ArrayList<byte[]> contents = new ArrayList<byte[]>(changedLines.cardinality());
+
+		for (int z = changedLines.nextSetBit(0); z >= 0; z = changedLines.nextSetBit(z + 1)) {
+			byte[] content = getBytes(file, lines.get(z));
+
+			if (content.length != source.getEnd(z) - source.getStart(z)) {
+				return false;
+			}
+
+			contents.add(content);
+		}
+
+		int index = 0;
+
+		for (int z = changedLines.nextSetBit(0); z >= 0; z = changedLines.nextSetBit(z + 1)) {
+			ByteBuffer buffer = ByteBuffer.wrap(contents.get(index++));
+
+			for (long position = source.getStart(z); buffer.hasRemaining(); ) {
+				position += file.write(buffer, position);
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Writes down the new content to the temporary file.
+	 * Everything before the first changed line, as well as the runs of unchanged lines after it, is transferred directly from the file.
+	 * @param file The opened file or a null reference when there is no index of the file's lines.
+	 * @param lines The current lines.
+	 * @param changedLines The indexes of the changed lines.
+	 * @param temporary The path to the temporary file.
+	 * @throws IOException Thrown when the file couldn't be read or the temporary file couldn't be written.
+	 */
+	private void stage(FileChannel file, List<Line> lines, BitSet changedLines, Path temporary) throws IOException {
+		final int lineCount = lines.size();
+		final int sourceCount = file == null ? 0 : source.size();
+
+		try (FileChannel staged = FileChannel.open(temporary, StandardOpenOption.WRITE); GatheringOutput output = new GatheringOutput(staged, charset)) {
+			int first = 0;
+
+			if (file != null) {
+				first = changedLines.isEmpty() ? lineCount : changedLines.nextSetBit(0);
+
+				if (lineCount != sourceCount) {
+					first = Math.min(first, Math.min(lineCount, sourceCount));
+				}
+
+				// Everything before the line feed (LF) preceding the first changed line stays the same.
+				if (first == 0) {
+					// Nothing to transfer.
+				} else if (first < sourceCount) {
+					output.transfer(file, 0, source.getStart(first) - 1);
+				} else {
+					output.transfer(file, 0, source.getFileSize());
+				}
+			}
+
+			for (int z = first; z < lineCount; ) {
+				if (z != 0) {
+					output.put((byte) '\n');
+				}
+
+				if (z < sourceCount && !changedLines.get(z)) {
+					// Transfer the whole run of unchanged lines at once.
+					int last = z;
+
+					while (last + 1 < lineCount && last + 1 < sourceCount && !changedLines.get(last + 1)) {
+						++last;
+					}
+
+					output.transfer(file, source.getStart(z), source.getEnd(last));
+
+					z = last + 1;
+
+					continue;
+				}
+
+				if (file == null) {
+					output.encode(getLineString(lines, z));
+				} else {
+					Line line = lines.get(z);
+
+					final int sourceLine = line.getSourceLine();
+
+					if (sourceLine < 0 || line.isModified()) {
+						output.encode(line.getLine());
+					} else {
+						// The line was only moved, so it's bytes are still in the file.
+						output.transfer(file, source.getStart(sourceLine), source.getEnd(sourceLine));
+					}
+				}
+
+				++z;
+			}
+		}
+	}
+
+	/**
+	 * Gets the bytes of the given line. Unchanged lines are read from the file, while the others are encoded.
+	 * @param file The opened file.
+	 * @param line The line.
+	 * @return A non-null reference to an array containing the bytes.
+	 * @throws IOException Thrown when the file couldn't be read.
+	 */
+	private byte[] getBytes(FileChannel file, Line line) throws IOException {
+		final int sourceLine = line.getSourceLine();
+
+		if (sourceLine < 0 || line.isModified()) {
+			return line.getLine().getBytes(charset);
+		}
+
+		final long start = source.getStart(sourceLine);
+
+		ByteBuffer buffer = ByteBuffer.allocate((int) (source.getEnd(sourceLine) - start));
+
+		while (buffer.hasRemaining()) {
+			if (file.read(buffer, start + buffer.position()) == -1) {
+				throw new IOException("File was truncated while it was being written!");
+			}
+		}
+
+		return buffer.array();
+	}
+
+	/**
+	 * Gets the content of the given line without keeping it decoded, in case the lines are mapped.
+	 * @param lines The current lines.
+	 * @param index Index of the line.
+	 * @return A non-null reference to a string containing the line.
+	 */
+	private static String getLineString(List<Line> lines, int index) {
+		if (lines instanceof MappedLineList) {
+			return ((MappedLineList) lines).getLineString(index);
+		}
+
+		return lines.get(index).getLine();
+	}
+
+	/**
+	 * Creates a temporary file next to the target, so it can be moved over it atomically.
+	 * The temporary file is given the same permissions as the target, when the file system supports them.
+	 * @param target The absolute path to the target.
+	 * @return A non-null reference to the path of the temporary file.
+	 * @throws IOException Thrown when the temporary file couldn't be created.
+	 */
+	private static Path createTemporaryFile(Path target) throws IOException {
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+		try {
+			Files.setPosixFilePermissions(temporary, Files.getPosixFilePermissions(target));
+		} catch (UnsupportedOperationException | NoSuchFileException exception) {
+			// Either the file system doesn't support them or there is nothing to copy them from.
+		}
+
+		return temporary;
+	}
+
+	/**
+	 * Represents the output to the temporary file.
+	 * Encoded lines are collected in pooled direct buffers which are written together through a single gathering write,
+	 * while ranges of the original file are transferred without passing through the application.
+	 */
+	private static final class GatheringOutput implements AutoCloseable {
+		private static final int maxBuffers;
+		private static final int minTransferSize;
+
+		private final FileChannel channel;
+		private final CharsetEncoder encoder;
+
+		private final ByteBuffer[] buffers;
+		private int count;
+
+		static {
+			maxBuffers = 16;
+			minTransferSize = 1 << 16;
+		}
+
+		/**
+		 * Creates new instance of the class writing to the given channel.
+		 * @param channel The channel of the temporary file.
+		 * @param charset The charset used to encode the lines.
+		 */
+		GatheringOutput(FileChannel channel, Charset charset) {
+			super();
+
+			this.channel = channel;
+
+			// Same behavior as "String.getBytes".
+			encoder = charset.newEncoder().onMalformedInput(CodingErrorAction.REPLACE).onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+			buffers = new ByteBuffer[maxBuffers];
+			count = 0;
+		}
+
+		/**
+		 * Moves on to the next buffer, writing down the collected ones when all of them are used.
+		 * @return A non-null reference to the buffer.
+		 * @throws IOException Thrown when the collected buffers couldn't be written.
+		 */
+		private ByteBuffer advance() throws IOException {
+			if (count == maxBuffers) {
+				drain();
+			}
+
+			if (buffers[count] == null) {
+				buffers[count] = BufferPool.acquire();
+			}
+
+			return buffers[count++].clear();
+		}
+
+		/**
+		 * Gets the buffer which is currently filled.
+		 * @return A non-null reference to a buffer with remaining space.
+		 * @throws IOException Thrown when the collected buffers couldn't be written.
+		 */
+		private ByteBuffer current() throws IOException {
+			if (count == 0 || !buffers[count - 1].hasRemaining()) {
+				return advance();
+			}
+
+			return buffers[count - 1];
+		}
+
+		/**
+		 * Writes down the collected buffers.
+		 * @throws IOException Thrown when the buffers couldn't be written.
+		 */
+		private void drain() throws IOException {
+			if (count == 0) {
+				return;
+			}
+
+			for (int z = 0; z < count; ++z) {
+				buffers[z].flip();
+			}
+
+			// The buffers are written in order, so all are written when the last one is.
+			while (buffers[count - 1].hasRemaining()) {
+				channel.write(buffers, 0, count);
+			}
+
+			count = 0;
+		}
+
+		/**
+		 * Writes a single byte.
+		 * @param value The byte.
+		 * @throws IOException Thrown when the collected buffers couldn't be written.
+		 */
+		void put(byte value) throws IOException {
+			current().put(value);
+		}
+
+		/**
+		 * Encodes and writes a line.
+		 * @param line The content of the line.
+		 * @throws IOException Thrown when the collected buffers couldn't be written.
+		 */
+		void encode(String line) throws IOException {
+			CharBuffer input = CharBuffer.wrap(line);
+
+			encoder.reset();
+
+			ByteBuffer target = current();
+
+			for (CoderResult result = encoder.encode(input, target, true); result.isOverflow(); result = encoder.encode(input, target, true)) {
+				target = advance();
+			}
+
+			for (CoderResult result = encoder.flush(target); result.isOverflow(); result = encoder.flush(target)) {
+				target = advance();
+			}
+		}
+
+		/**
+		 * Transfers a range of a file. Short ranges are read into the buffers instead, as each transfer costs a system call.
+		 * @param file The file.
+		 * @param start The offset at which the range begins.
+		 * @param end The offset at which the range ends.
+		 * @throws IOException Thrown when the file couldn't be read or the range couldn't be written.
+		 */
+		void transfer(FileChannel file, long start, long end) throws IOException {
+			if (end - start < minTransferSize) {
+				for (long position = start; position < end; ) {
+					ByteBuffer target = current();
+
+					final int limit = target.limit();
+
+					target.limit((int) Math.min(limit, target.position() + end - position));
+
+					final int read = file.read(target, position);
+
+					target.limit(limit);
+
+					if (read == -1) {
+						throw new IOException("File was truncated while it was being written!");
+					}
+
+					position += read;
+				}
+
+				return;
+			}
+
+			drain();
+
+			for (long position = start; position < end; ) {
+				final long transferred = file.transferTo(position, end - position, channel);
+
+				if (transferred == 0 && file.size() <= position) {
+					throw new IOException("File was truncated while it was being written!");
+				}
+
+				position += transferred;
+			}
+		}
+
+		/**
+		 * Writes down the remaining buffers and returns them to the pool.
+		 * @throws IOException Thrown when the buffers couldn't be written.
+		 */
+		@Override
+		public void close() throws IOException {
+			try {
+				drain();
+			} finally {
+				for (int z = 0; z < maxBuffers && buffers[z] != null; ++z) {
+					BufferPool.release(buffers[z]);
+
+					buffers[z] = null;
+				}
+			}
+		}
+	}
+}
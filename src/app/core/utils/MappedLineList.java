@@ -0,0 +1,363 @@
+package app.core.utils;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Represents the lines of a file which is mapped into memory.
+ * Only the offsets at which the lines begin are collected when the instance is created.
+ * A line is decoded and kept in memory only when it is first requested through {@code get} or replaced through {@code set},
+ * therefore memory usage grows with the number of touched lines instead of the size of the file.
+ */
+public final class MappedLineList extends AbstractList<Line> implements RandomAccess, AutoCloseable {
+	private static final int segmentSize;
+	private static final int scanBufferSize;
+
+	private final FileChannel channel;
+	private final Charset charset;
+	private final LineIndex index;
+
+	// Each segment begins at the start of a line and contains only whole lines.
+	private MappedByteBuffer[] segments;
+	private long[] segmentBases;
+	private int segmentCount;
+
+	// Holds the lines which are already decoded, replaced or appended.
+	private final HashMap<Integer, Line> materialized;
+	private int size;
+
+	static {
+		segmentSize = 1 << 30;
+		scanBufferSize = 1 << 16;
+	}
+
+	/**
+	 * Creates new instance by mapping the specified file and indexing it's lines.
+	 * @param filePath Absolute or relative path to the file.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when there was an error while mapping or indexing the file's content.
+	 */
+	public MappedLineList(String filePath) throws FileNotFoundException, SecurityException, IOException {
+		super();
+
+		channel = new FileInputStream(filePath).getChannel();
+		charset = Charset.defaultCharset();
+		index = new LineIndex();
+
+		segments = new MappedByteBuffer[4];
+		segmentBases = new long[4];
+		segmentCount = 0;
+
+		materialized = new HashMap<Integer, Line>();
+
+		try {
+			indexLines();
+		} catch (IOException | RuntimeException exception) {
+			channel.close();
+
+			throw exception;
+		}
+
+		size = index.size();
+	}
+
+	/**
+	 * Maps the file segment by segment and collects the offsets at which the lines begin.
+	 * @throws IOException Thrown when the file couldn't be mapped or contains a line which cannot fit in a single mapping.
+	 */
+	private void indexLines() throws IOException {
+		final long fileSize = channel.size();
+
+		byte[] scanBuffer = new byte[scanBufferSize];
+
+		long base = 0;
+		long windowSize = segmentSize;
+
+		index.add(0);
+		index.setFileSize(fileSize);
+
+		while (base < fileSize) {
+			final long remaining = fileSize - base;
+			final int mappedSize = (int) Math.min(remaining, windowSize);
+
+			MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, base, mappedSize);
+
+			// Offset just after the last line feed (LF) found in the window.
+			int lastStart = 0;
+
+			for (int offset = 0; offset < mappedSize; offset += scanBuffer.length) {
+				final int length = Math.min(scanBuffer.length, mappedSize - offset);
+
+				window.get(offset, scanBuffer, 0, length);
+
+				for (int z = 0; z < length; ++z) {
+					if (scanBuffer[z] == '\n') {
+						lastStart = offset + z + 1;
+
+						index.add(base + lastStart);
+					}
+				}
+			}
+
+			if (mappedSize == remaining) {
+				addSegment(window, base);
+
+				break;
+			}
+
+			if (lastStart == 0) {
+				// A single line does not fit in the window, so try again with a bigger one.
+				if (windowSize == Integer.MAX_VALUE) {
+					throw new IOException("Line is too long to be mapped!");
+				}
+
+				windowSize = Math.min(windowSize * 2, Integer.MAX_VALUE);
+
+				continue;
+			}
+
+			// The part after the last line feed is mapped again as the beginning of the next segment.
+			addSegment(window, base);
+
+			base += lastStart;
+			windowSize = segmentSize;
+		}
+	}
+
+	/**
+	 * Appends a mapped segment.
+	 * @param segment The mapped segment.
+	 * @param base The offset into the file at which the segment begins.
+	 */
+	private void addSegment(MappedByteBuffer segment, long base) {
+		if (segmentCount == segments.length) {
+			segments = Arrays.copyOf(segments, segmentCount * 2);
+			segmentBases = Arrays.copyOf(segmentBases, segmentCount * 2);
+		}
+
+		segments[segmentCount] = segment;
+		segmentBases[segmentCount] = base;
+		++segmentCount;
+	}
+
+	/**
+	 * Decodes the given line from the mapped file without keeping it in memory.
+	 * @param line Index of the line into the file.
+	 * @return A non-null reference to the decoded line.
+	 */
+	private Line decode(int line) {
+		final long start = index.getStart(line);
+		final long end = index.getEnd(line);
+
+		if (start == end) {
+			Line empty = Line.empty();
+
+			empty.setSourceLine(line);
+
+			return empty;
+		}
+
+		// Find the last segment beginning at or before the line.
+		int segment = Arrays.binarySearch(segmentBases, 0, segmentCount, start);
+
+		if (segment < 0) {
+			segment = -segment - 2;
+		}
+
+		ByteBuffer bytes = segments[segment].slice((int) (start - segmentBases[segment]), (int) (end - start));
+		CharBuffer chars = charset.decode(bytes);
+
+		Line decoded = LineReader.toLine(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+
+		decoded.setSourceLine(line);
+
+		return decoded;
+	}
+
+	/**
+	 * Gets the index of the mapped file's lines.
+	 * @return A non-null reference to the index.
+	 */
+	public LineIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Gets the content of the given line without keeping it in memory, when it isn't already.
+	 * @param index Index of the line.
+	 * @return A non-null reference to a string containing the line.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	public String getLineString(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || size <= index) {
+			throw new IndexOutOfBoundsException(index);
+		}
+
+		Line line = materialized.get(index);
+
+		if (line == null) {
+			line = decode(index);
+		}
+
+		return line.getLine();
+	}
+
+	/**
+	 * Creates a stream of the current lines which decodes the untouched lines without keeping them in memory.
+	 * As the line count is already known, the stream is sized and splits evenly, so it can be processed in parallel.
+	 * @return A non-null reference to the new stream.
+	 * @apiNote The list must not be modified while the stream is in use.
+	 */
+	public Stream<Line> lines() {
+		return StreamSupport.stream(new LineSpliterator(0, size), false);
+	}
+
+	@Override
+	public Line get(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || size <= index) {
+			throw new IndexOutOfBoundsException(index);
+		}
+
+		Line line = materialized.get(index);
+
+		if (line == null) {
+			line = decode(index);
+
+			materialized.put(index, line);
+		}
+
+		return line;
+	}
+
+	@Override
+	public Line set(int index, Line line) throws IndexOutOfBoundsException {
+		Line previous = get(index);
+
+		materialized.put(index, line);
+
+		return previous;
+	}
+
+	@Override
+	public void add(int index, Line line) throws IndexOutOfBoundsException, UnsupportedOperationException {
+		if (index != size) {
+			throw new UnsupportedOperationException("Lines can only be appended!");
+		}
+
+		materialized.put(size++, line);
+
+		++modCount;
+	}
+
+	@Override
+	public Line remove(int index) throws IndexOutOfBoundsException, UnsupportedOperationException {
+		if (index != size - 1) {
+			if (index < 0 || size <= index) {
+				throw new IndexOutOfBoundsException(index);
+			}
+
+			throw new UnsupportedOperationException("Only the last line can be removed!");
+		}
+
+		Line previous = get(index);
+
+		materialized.remove(--size);
+
+		++modCount;
+
+		return previous;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Represents the traversal of a range of the list's lines.
+	 */
+	private final class LineSpliterator implements Spliterator<Line> {
+		private int from;
+		private final int to;
+
+		/**
+		 * Creates new instance of the class traversing the lines with indexes in the range [from, to).
+		 * @param from Index of the first line.
+		 * @param to Index just after the last line.
+		 */
+		LineSpliterator(int from, int to) {
+			super();
+
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super Line> action) {
+			if (from == to) {
+				return false;
+			}
+
+			Line line = materialized.get(from);
+
+			if (line == null) {
+				line = decode(from);
+			}
+
+			++from;
+
+			action.accept(line);
+
+			return true;
+		}
+
+		@Override
+		public Spliterator<Line> trySplit() {
+			final int middle = (from + to) >>> 1;
+
+			if (middle == from) {
+				return null;
+			}
+
+			LineSpliterator prefix = new LineSpliterator(from, middle);
+
+			from = middle;
+
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return to - from;
+		}
+
+		@Override
+		public int characteristics() {
+			return ORDERED | NONNULL | SIZED | SUBSIZED;
+		}
+	}
+
+	/**
+	 * Closes the mapped file. The mapping itself stays valid until the instance is no longer referenced.
+	 * @throws IOException Thrown when the file couldn't be closed properly.
+	 */
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+}
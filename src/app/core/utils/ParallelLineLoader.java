@@ -0,0 +1,215 @@
+package app.core.utils;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Class for loading all lines of a file in parallel.
+ * The file is split into byte ranges which begin at the start of a line. The ranges are then decoded and split into lines
+ * simultaneously on a {@link java.util.concurrent.ForkJoinPool} and their lines are joined in order.
+ * The resulting lines are exactly the same as the ones produced by {@link LineReader}.
+ */
+public final class ParallelLineLoader {
+	private static final long minimalChunkSize;
+	private static final int chunksPerThread;
+
+	private final ArrayList<Line> lines;
+	private final LineIndex index;
+
+	static {
+		minimalChunkSize = 1 << 20;
+		chunksPerThread = 4;
+	}
+
+	/**
+	 * Creates new instance of the class while loading all lines of the file using the platform's default charset.
+	 * @param filename Absolute or relative path to the file.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when the file couldn't be read.
+	 */
+	public ParallelLineLoader(String filename) throws FileNotFoundException, SecurityException, IOException {
+		this(filename, Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates new instance of the class while loading all lines of the file.
+	 * Small files and files whose charset doesn't encode line breaks as single bytes are loaded sequentially.
+	 * @param filename Absolute or relative path to the file.
+	 * @param charset The charset used to decode the file's content.
+	 * @throws FileNotFoundException Thrown when the file couldn't be found and/or opened.
+	 * @throws SecurityException Thrown when there is a security violation.
+	 * @throws IOException Thrown when the file couldn't be read.
+	 */
+	public ParallelLineLoader(String filename, Charset charset) throws FileNotFoundException, SecurityException, IOException {
+		super();
+
+		try (FileChannel input = new FileInputStream(filename).getChannel()) {
+			final long size = input.size();
+
+			ForkJoinPool pool = ForkJoinPool.commonPool();
+
+			int chunkCount = (int) Math.min((long) pool.getParallelism() * chunksPerThread, size / minimalChunkSize);
+
+			long[] bounds = null;
+
+			if (chunkCount >= 2 && LineReader.encodesLineBreaksAsBytes(charset)) {
+				// Move each boundary to the beginning of the next line.
+				bounds = new long[chunkCount + 1];
+
+				int boundCount = 1;
+
+				for (int z = 1; z < chunkCount; ++z) {
+					final long bound = LineReader.nextLineStart(input, Math.max(size / chunkCount * z, bounds[boundCount - 1]), size);
+
+					// Boundaries within the same line are moved to the same place, and the ones within the last line to the end of the file.
+					if (bound != bounds[boundCount - 1] && bound != size) {
+						bounds[boundCount++] = bound;
+					}
+				}
+
+				bounds[boundCount] = size;
+
+				chunkCount = boundCount;
+			}
+
+			if (chunkCount < 2 || bounds == null) {
+				LineReader reader = new LineReader(input, 0, size, charset);
+
+				lines = reader.getLines();
+				index = reader.getIndex();
+
+				return;
+			}
+
+			@SuppressWarnings("unchecked")
+			ArrayList<Line>[] chunks = (ArrayList<Line>[]) new ArrayList<?>[chunkCount];
+			LineIndex[] indexes = new LineIndex[chunkCount];
+
+			try {
+				pool.invoke(new LoadTask(input, charset, bounds, chunks, indexes, 0, chunkCount));
+			} catch (UncheckedIOException exception) {
+				throw exception.getCause();
+			}
+
+			int lineCount = 0;
+
+			for (ArrayList<Line> chunk : chunks) {
+				lineCount += chunk.size();
+			}
+
+			lines = new ArrayList<Line>(lineCount);
+			index = new LineIndex();
+
+			for (int z = 0; z < chunkCount; ++z) {
+				lines.addAll(chunks[z]);
+				index.addAll(indexes[z]);
+
+				// Not needed anymore.
+				chunks[z] = null;
+				indexes[z] = null;
+			}
+
+			index.setFileSize(size);
+
+			// The readers number the lines from the beginning of their chunks.
+			for (int z = 0; z < lineCount; ++z) {
+				lines.get(z).setSourceLine(z);
+			}
+		}
+	}
+
+	/**
+	 * Gets the loaded lines.
+	 * @return List of the lines from the file.
+	 */
+	public ArrayList<Line> getLines() {
+		return lines;
+	}
+
+	/**
+	 * Gets the index of the byte offsets of the loaded lines.
+	 * @return A reference to the index or a null reference when the charset doesn't encode line breaks as single bytes.
+	 */
+	public LineIndex getIndex() {
+		return index;
+	}
+
+	/**
+	 * Represents the loading of a range of chunks, which is split in halves until a single chunk is left.
+	 */
+	private static final class LoadTask extends RecursiveAction {
+		private static final long serialVersionUID = 0L;
+
+		private final FileChannel input;
+		private final Charset charset;
+		private final long[] bounds;
+		private final ArrayList<Line>[] chunks;
+		private final LineIndex[] indexes;
+		private final int from;
+		private final int to;
+
+		/**
+		 * Creates a new task loading the chunks with indexes in the range [from, to).
+		 * @param input The opened file.
+		 * @param charset The charset used to decode the file's content.
+		 * @param bounds The offsets at which the chunks begin, followed by the size of the file.
+		 * @param chunks The array in which the lines of each chunk are stored.
+		 * @param indexes The array in which the line offsets of each chunk are stored.
+		 * @param from The index of the first chunk.
+		 * @param to The index just after the last chunk.
+		 */
+		LoadTask(FileChannel input, Charset charset, long[] bounds, ArrayList<Line>[] chunks, LineIndex[] indexes, int from, int to) {
+			super();
+
+			this.input = input;
+			this.charset = charset;
+			this.bounds = bounds;
+			this.chunks = chunks;
+			this.indexes = indexes;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if (to - from > 1) {
+				final int middle = (from + to) >>> 1;
+
+				invokeAll(
+					new LoadTask(input, charset, bounds, chunks, indexes, from, middle),
+					new LoadTask(input, charset, bounds, chunks, indexes, middle, to)
+				);
+
+				return;
+			}
+
+			try {
+				LineReader reader = new LineReader(input, bounds[from], bounds[from + 1], charset);
+
+				ArrayList<Line> lines = reader.getLines();
+				LineIndex index = reader.getIndex();
+
+				// Every chunk except the last one ends with a line feed (LF), since the boundaries are distinct beginnings of lines,
+				// after which the reader sees an empty line.
+				// That line is actually the beginning of the next chunk.
+				if (from + 1 != chunks.length) {
+					lines.remove(lines.size() - 1);
+					index.removeLast();
+				}
+
+				chunks[from] = lines;
+				indexes[from] = index;
+			} catch (IOException exception) {
+				throw new UncheckedIOException(exception);
+			}
+		}
+	}
+}
@@ -0,0 +1,649 @@
+package app.core.utils;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Represents immutable text made of pieces, each referencing a range of an immutable string.
+ * The pieces are kept in order in a randomized balanced tree (treap), so splitting and joining text costs a logarithmic
+ * number of new pieces and never copies the characters themselves.
+ * As no instance is ever changed, the same pieces can be shared by many instances.
+ * It is also a character sequence, so the content of a line can be kept as it is while the line changes later (see {@link Line#getImmutableContent}).
+ */
+final class PieceTable implements CharSequence {
+	private final Piece root;
+
+	// The pieces in order, collected when the characters are first read, and the index of the piece in which the last character was found,
+	// so reading the characters in order doesn't search for each of them. Both are racy, but safe as the pieces themselves are never changed
+	// and any index is checked before it is used, the same as the cached hash of a string.
+	private Pieces pieces;
+	private int cursor;
+
+	/**
+	 * Creates new instance of the class with the given tree of pieces.
+	 * @param root The root of the tree or a null reference when the text is empty.
+	 * @param pieces The same pieces in order or a null reference when they are collected when needed.
+	 */
+	private PieceTable(Piece root, Pieces pieces) {
+		super();
+
+		this.root = root;
+		this.pieces = pieces;
+
+		cursor = 0;
+	}
+
+	/**
+	 * Creates new instance of the class with the given tree of pieces.
+	 * @param root The root of the tree or a null reference when the text is empty.
+	 */
+	private PieceTable(Piece root) {
+		this(root, null);
+	}
+
+	/**
+	 * Creates an instance containing the given string as a single piece.
+	 * @param text The string.
+	 * @return A non-null reference to the new instance.
+	 */
+	static PieceTable of(String text) {
+		if (text.isEmpty()) {
+			return new PieceTable(null);
+		}
+
+		return new PieceTable(Piece.leaf(text, 0, text.length()));
+	}
+
+	@Override
+	public int length() {
+		return Piece.size(root);
+	}
+
+	@Override
+	public char charAt(int index) throws IndexOutOfBoundsException {
+		if (index < 0 || length() <= index) {
+			throw new IndexOutOfBoundsException(index);
+		}
+
+		final Pieces pieces = getPieces();
+
+		int cursor = this.cursor;
+
+		if (index < pieces.offsets[cursor] || pieces.offsets[cursor + 1] <= index) {
+			// Usually the characters are read in order, so the next piece is checked first.
+			if (cursor + 2 < pieces.offsets.length && pieces.offsets[cursor + 1] <= index && index < pieces.offsets[cursor + 2]) {
+				++cursor;
+			} else {
+				cursor = pieces.find(index);
+			}
+
+			this.cursor = cursor;
+		}
+
+		return pieces.texts[cursor].charAt(pieces.starts[cursor] + index - pieces.offsets[cursor]);
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) throws IndexOutOfBoundsException {
+		return slice(start, end);
+	}
+
+	/**
+	 * Creates an instance containing a range of the text, referencing the same strings.
+	 * @param start The offset at which the range begins.
+	 * @param end The offset just after the range's end.
+	 * @return A non-null reference to the new instance.
+	 * @throws IndexOutOfBoundsException Thrown when the range is out of bounds.
+	 */
+	PieceTable slice(int start, int end) throws IndexOutOfBoundsException {
+		Builder builder = new Builder();
+
+		builder.append(this, start, end);
+
+		return builder.build();
+	}
+
+	/**
+	 * Extracts a range of the text.
+	 * @param start The offset at which the range begins.
+	 * @param end The offset just after the range's end.
+	 * @return A non-null reference to a string containing the range.
+	 * @throws IndexOutOfBoundsException Thrown when the range is out of bounds.
+	 */
+	String substring(int start, int end) throws IndexOutOfBoundsException {
+		if (start < 0 || end < start || length() < end) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		return copy(start, end);
+	}
+
+	/**
+	 * Finds the piece containing the character at the given offset, so ranges beginning at it can be compared without searching it again.
+	 * @param offset The offset.
+	 * @return The index of the piece.
+	 * @throws IndexOutOfBoundsException Thrown when the offset is out of bounds.
+	 */
+	int pieceAt(int offset) throws IndexOutOfBoundsException {
+		if (offset < 0 || length() <= offset) {
+			throw new IndexOutOfBoundsException(offset);
+		}
+
+		return getPieces().find(offset);
+	}
+
+	/**
+	 * Compares two non-empty ranges of the text lexicographically, the same as {@link String#compareTo} does, without extracting them.
+	 * The characters are compared a run at a time, for as long as both ranges stay within their current pieces.
+	 * @param firstStart The offset at which the first range begins.
+	 * @param firstEnd The offset just after the first range's end.
+	 * @param first The index of the piece containing the first range's beginning (see {@code pieceAt}).
+	 * @param secondStart The offset at which the second range begins.
+	 * @param secondEnd The offset just after the second range's end.
+	 * @param second The index of the piece containing the second range's beginning.
+	 * @return Zero when the ranges are equal, a negative integer when the first one comes first, or a positive integer otherwise.
+	 * @throws IndexOutOfBoundsException Thrown when the ranges are out of bounds or empty.
+	 */
+	int compareRanges(int firstStart, int firstEnd, int first, int secondStart, int secondEnd, int second) throws IndexOutOfBoundsException {
+		if (firstStart < 0 || firstEnd <= firstStart || length() < firstEnd || secondStart < 0 || secondEnd <= secondStart || length() < secondEnd) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		final int firstLength = firstEnd - firstStart, secondLength = secondEnd - secondStart;
+
+		final Pieces pieces = getPieces();
+
+		while (firstStart < firstEnd && secondStart < secondEnd) {
+			final String firstText = pieces.texts[first], secondText = pieces.texts[second];
+
+			final int run = Math.min(Math.min(firstEnd, pieces.offsets[first + 1]) - firstStart, Math.min(secondEnd, pieces.offsets[second + 1]) - secondStart);
+			final int firstOffset = pieces.starts[first] + firstStart - pieces.offsets[first];
+			final int secondOffset = pieces.starts[second] + secondStart - pieces.offsets[second];
+
+			for (int z = 0; z < run; ++z) {
+				final char firstCharacter = firstText.charAt(firstOffset + z), secondCharacter = secondText.charAt(secondOffset + z);
+
+				if (firstCharacter != secondCharacter) {
+					return firstCharacter - secondCharacter;
+				}
+			}
+
+			firstStart += run;
+			secondStart += run;
+
+			if (firstStart == pieces.offsets[first + 1]) {
+				++first;
+			}
+
+			if (secondStart == pieces.offsets[second + 1]) {
+				++second;
+			}
+		}
+
+		return firstLength - secondLength;
+	}
+
+	/**
+	 * Checks whether the text has the same characters as the given character sequence, comparing whole pieces at once with strings and piece tables.
+	 * @param other The character sequence.
+	 * @return True when the characters are the same. Otherwise, false.
+	 */
+	boolean contentEquals(CharSequence other) {
+		if (length() != other.length()) {
+			return false;
+		}
+
+		final Pieces pieces = getPieces();
+
+		for (int z = 0; z + 1 < pieces.offsets.length; ++z) {
+			final String text = pieces.texts[z];
+
+			final int offset = pieces.offsets[z], start = pieces.starts[z], length = pieces.offsets[z + 1] - offset;
+
+			if (other instanceof String) {
+				if (!((String) other).regionMatches(offset, text, start, length)) {
+					return false;
+				}
+			} else if (other instanceof PieceTable) {
+				if (!((PieceTable) other).regionMatches(offset, text, start, length)) {
+					return false;
+				}
+			} else {
+				for (int y = 0; y < length; ++y) {
+					if (other.charAt(offset + y) != text.charAt(start + y)) {
+						return false;
+					}
+				}
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Checks whether a range of the text has the same characters as a range of a string.
+	 * @param offset The offset at which the range of the text begins.
+	 * @param text The string.
+	 * @param start The offset into the string at which it's range begins.
+	 * @param length The length of both ranges, which must be in bounds.
+	 * @return True when the characters are the same. Otherwise, false.
+	 */
+	private boolean regionMatches(int offset, String text, int start, int length) {
+		final Pieces pieces = getPieces();
+
+		for (int z = pieces.find(offset); length != 0; ++z) {
+			final int from = offset - pieces.offsets[z];
+			final int run = Math.min(length, pieces.offsets[z + 1] - offset);
+
+			if (!pieces.texts[z].regionMatches(pieces.starts[z] + from, text, start, run)) {
+				return false;
+			}
+
+			offset += run;
+			start += run;
+			length -= run;
+		}
+
+		return true;
+	}
+
+	/**
+	 * Creates an instance where two ranges of the text are swapped.
+	 * @param leftStart The offset at which the left range begins.
+	 * @param leftEnd The offset just after the left range's end.
+	 * @param rightStart The offset at which the right range begins.
+	 * @param rightEnd The offset just after the right range's end.
+	 * @return A non-null reference to the new instance.
+	 * @throws IndexOutOfBoundsException Thrown when the ranges are out of bounds or overlap.
+	 */
+	PieceTable swap(int leftStart, int leftEnd, int rightStart, int rightEnd) throws IndexOutOfBoundsException {
+		if (leftStart < 0 || leftEnd < leftStart || rightStart < leftEnd || rightEnd < rightStart || length() < rightEnd) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		Piece[] tail = split(root, rightEnd);
+		Piece[] right = split(tail[0], rightStart);
+		Piece[] middle = split(right[0], leftEnd);
+		Piece[] left = split(middle[0], leftStart);
+
+		return new PieceTable(merge(merge(merge(merge(left[0], right[1]), middle[1]), left[1]), tail[1]));
+	}
+
+	/**
+	 * Creates an instance where a range of the text is replaced with a range of another text.
+	 * @param start The offset at which the replaced range begins.
+	 * @param end The offset just after the replaced range's end.
+	 * @param other The other text.
+	 * @param otherStart The offset at which the range of the other text begins.
+	 * @param otherEnd The offset just after the range of the other text's end.
+	 * @return A non-null reference to the new instance.
+	 * @throws IndexOutOfBoundsException Thrown when any of the ranges are out of bounds.
+	 */
+	PieceTable replace(int start, int end, PieceTable other, int otherStart, int otherEnd) throws IndexOutOfBoundsException {
+		if (start < 0 || end < start || length() < end || otherStart < 0 || otherEnd < otherStart || other.length() < otherEnd) {
+			throw new IndexOutOfBoundsException();
+		}
+
+		Piece[] tail = split(root, end);
+		Piece[] head = split(tail[0], start);
+		Piece[] replacement = split(split(other.root, otherEnd)[0], otherStart);
+
+		return new PieceTable(merge(merge(head[0], replacement[1]), tail[1]));
+	}
+
+	/**
+	 * Copies the whole text to a new string.
+	 * @return A non-null reference to the string.
+	 */
+	@Override
+	public String toString() {
+		return copy(0, length());
+	}
+
+	/**
+	 * Copies a range of the text to a new string, a whole piece at a time.
+	 * @param start The offset at which the range begins, which must be in bounds.
+	 * @param end The offset just after the range's end, which must be in bounds.
+	 * @return A non-null reference to the string.
+	 */
+	private String copy(int start, int end) {
+		if (start == end) {
+			return "";
+		}
+
+		final Pieces pieces = getPieces();
+
+		char[] characters = new char[end - start];
+
+		for (int z = pieces.find(start), copied = 0; copied < characters.length; ++z) {
+			final int from = pieces.starts[z] + start + copied - pieces.offsets[z];
+			final int run = Math.min(characters.length - copied, pieces.offsets[z + 1] - start - copied);
+
+			pieces.texts[z].getChars(from, from + run, characters, copied);
+
+			copied += run;
+		}
+
+		return new String(characters);
+	}
+
+	/**
+	 * Gets the pieces in order, collecting them from the tree when this is called for the first time.
+	 * @return A non-null reference to the pieces.
+	 */
+	private Pieces getPieces() {
+		Pieces pieces = this.pieces;
+
+		if (pieces == null) {
+			Builder builder = new Builder();
+
+			builder.append(root);
+
+			pieces = builder.getPieces();
+
+			this.pieces = pieces;
+		}
+
+		return pieces;
+	}
+
+	/**
+	 * Splits a tree into the pieces before and after the given offset, splitting the piece containing the offset in two.
+	 * @param piece The root of the tree.
+	 * @param offset The offset into the tree.
+	 * @return A non-null reference to an array containing the roots of the two trees, which are null references when empty.
+	 */
+	private static Piece[] split(Piece piece, int offset) {
+		if (piece == null) {
+			return new Piece[] { null, null };
+		}
+
+		final int leftSize = Piece.size(piece.left);
+
+		if (offset <= leftSize) {
+			Piece[] parts = split(piece.left, offset);
+
+			return new Piece[] { parts[0], piece.withChildren(parts[1], piece.right) };
+		}
+
+		final int pieceEnd = leftSize + piece.length;
+
+		if (pieceEnd <= offset) {
+			Piece[] parts = split(piece.right, offset - pieceEnd);
+
+			return new Piece[] { piece.withChildren(piece.left, parts[0]), parts[1] };
+		}
+
+		// Each half becomes a new piece with it's own priority, so splitting the same piece many times keeps the tree balanced.
+		final int cut = offset - leftSize;
+
+		return new Piece[] {
+			merge(piece.left, Piece.leaf(piece.text, piece.start, cut)),
+			merge(Piece.leaf(piece.text, piece.start + cut, piece.length - cut), piece.right),
+		};
+	}
+
+	/**
+	 * Joins two trees, keeping the pieces of the first one before the pieces of the second one.
+	 * @param left The root of the first tree.
+	 * @param right The root of the second tree.
+	 * @return The root of the joined tree or a null reference when both are empty.
+	 */
+	private static Piece merge(Piece left, Piece right) {
+		if (left == null) {
+			return right;
+		}
+
+		if (right == null) {
+			return left;
+		}
+
+		if (left.priority >= right.priority) {
+			return left.withChildren(left.left, merge(left.right, right));
+		}
+
+		return right.withChildren(merge(left, right.left), right.right);
+	}
+
+	/**
+	 * Represents the building of a new text from ranges of other texts, in order, without copying their characters.
+	 * The ranges are collected first and joined into a tree only once, which takes linear time
+	 * instead of splitting and joining the whole tree for each range.
+	 */
+	static final class Builder {
+		private String[] texts;
+		private int[] starts;
+		private int[] offsets;
+		private int count;
+
+		/**
+		 * Creates a builder of an empty text.
+		 */
+		Builder() {
+			super();
+
+			texts = new String[8];
+			starts = new int[8];
+			offsets = new int[9];
+			count = 0;
+		}
+
+		/**
+		 * Gets the length of the text built so far.
+		 * @return A positive integer representing the length.
+		 */
+		int length() {
+			return offsets[count];
+		}
+
+		/**
+		 * Appends a range of a text.
+		 * @param text The text.
+		 * @param start The offset at which the range begins.
+		 * @param end The offset just after the range's end.
+		 * @throws IndexOutOfBoundsException Thrown when the range is out of bounds.
+		 */
+		void append(PieceTable text, int start, int end) throws IndexOutOfBoundsException {
+			if (start < 0 || end < start || text.length() < end) {
+				throw new IndexOutOfBoundsException();
+			}
+
+			if (start == end) {
+				return;
+			}
+
+			final Pieces pieces = text.getPieces();
+
+			for (int z = pieces.find(start); start < end; ++z) {
+				final int to = Math.min(end, pieces.offsets[z + 1]);
+
+				append(pieces.texts[z], pieces.starts[z] + start - pieces.offsets[z], to - start);
+
+				start = to;
+			}
+		}
+
+		/**
+		 * Appends the pieces of a tree in order.
+		 * @param piece The root of the tree.
+		 */
+		private void append(Piece piece) {
+			while (piece != null) {
+				append(piece.left);
+				append(piece.text, piece.start, piece.length);
+
+				// Continue with the right subtree without recursion.
+				piece = piece.right;
+			}
+		}
+
+		/**
+		 * Appends a range of a string as a piece, joining it with the previous piece when it continues right after it.
+		 * @param text The string.
+		 * @param start The offset into the string at which the range begins.
+		 * @param length The length of the range.
+		 */
+		private void append(String text, int start, int length) {
+			if (length == 0) {
+				return;
+			}
+
+			if (count != 0 && texts[count - 1] == text && starts[count - 1] + offsets[count] - offsets[count - 1] == start) {
+				offsets[count] += length;
+
+				return;
+			}
+
+			if (count == texts.length) {
+				texts = Arrays.copyOf(texts, count * 2);
+				starts = Arrays.copyOf(starts, count * 2);
+				offsets = Arrays.copyOf(offsets, count * 2 + 1);
+			}
+
+			texts[count] = text;
+			starts[count] = start;
+			offsets[count + 1] = offsets[count] + length;
+
+			++count;
+		}
+
+		/**
+		 * Gets the pieces collected so far in order.
+		 * @return A non-null reference to the pieces.
+		 */
+		private Pieces getPieces() {
+			return new Pieces(Arrays.copyOf(texts, count), Arrays.copyOf(starts, count), Arrays.copyOf(offsets, count + 1));
+		}
+
+		/**
+		 * Creates the text built so far.
+		 * @return A non-null reference to the new instance.
+		 */
+		PieceTable build() {
+			return new PieceTable(join(0, count), getPieces());
+		}
+
+		/**
+		 * Joins a range of the collected pieces into a tree, by joining the trees of both halves.
+		 * @param from The index of the first piece.
+		 * @param to The index just after the last piece.
+		 * @return The root of the tree or a null reference when the range is empty.
+		 */
+		private Piece join(int from, int to) {
+			if (to - from < 2) {
+				return from == to ? null : Piece.leaf(texts[from], starts[from], offsets[from + 1] - offsets[from]);
+			}
+
+			final int middle = (from + to) >>> 1;
+
+			return merge(join(from, middle), join(middle, to));
+		}
+	}
+
+	/**
+	 * Represents the pieces of a text in order, each as the string it references, the offset into it and the offset into the whole text.
+	 * Kept in arrays, so the pieces are read in order without following references to each of them.
+	 */
+	private static final class Pieces {
+		private final String[] texts;
+		private final int[] starts;
+
+		// The offset at which each piece begins, followed by the length of the text.
+		private final int[] offsets;
+
+		/**
+		 * Creates new instance of the class.
+		 * @param texts The string which each piece references.
+		 * @param starts The offset into the string at which each piece begins.
+		 * @param offsets The offset into the whole text at which each piece begins, followed by the length of the text.
+		 */
+		Pieces(String[] texts, int[] starts, int[] offsets) {
+			super();
+
+			this.texts = texts;
+			this.starts = starts;
+			this.offsets = offsets;
+		}
+
+		/**
+		 * Finds the piece containing the character at the given offset.
+		 * @param offset The offset, which is less than the length of the text.
+		 * @return The index of the piece.
+		 */
+		int find(int offset) {
+			final int index = Arrays.binarySearch(offsets, 0, texts.length, offset);
+
+			// Pieces are never empty, so the offsets are distinct.
+			return index < 0 ? -index - 2 : index;
+		}
+	}
+
+	/**
+	 * Represents a piece of text and the subtree of pieces rooted at it.
+	 */
+	private static final class Piece {
+		private final String text;
+		private final int start;
+		private final int length;
+		private final int priority;
+
+		private final Piece left;
+		private final Piece right;
+
+		// The count of characters in the whole subtree.
+		private final int size;
+
+		/**
+		 * Creates new instance of the class.
+		 * @param text The string which the piece references.
+		 * @param start The offset into the string at which the piece begins.
+		 * @param length The length of the piece.
+		 * @param priority The priority of the piece, which is never less than the ones of it's children.
+		 * @param left The left child or a null reference when there is none.
+		 * @param right The right child or a null reference when there is none.
+		 */
+		Piece(String text, int start, int length, int priority, Piece left, Piece right) {
+			super();
+
+			this.text = text;
+			this.start = start;
+			this.length = length;
+			this.priority = priority;
+
+			this.left = left;
+			this.right = right;
+
+			size = size(left) + length + size(right);
+		}
+
+		/**
+		 * Creates a piece without children and with a random priority.
+		 * @param text The string which the piece references.
+		 * @param start The offset into the string at which the piece begins.
+		 * @param length The length of the piece.
+		 * @return A non-null reference to the new piece.
+		 */
+		static Piece leaf(String text, int start, int length) {
+			return new Piece(text, start, length, ThreadLocalRandom.current().nextInt(), null, null);
+		}
+
+		/**
+		 * Creates a copy of the piece with different children.
+		 * @param left The new left child.
+		 * @param right The new right child.
+		 * @return A non-null reference to the copy.
+		 */
+		Piece withChildren(Piece left, Piece right) {
+			return new Piece(text, start, length, priority, left, right);
+		}
+
+		/**
+		 * Gets the count of characters in a subtree.
+		 * @param piece The root of the subtree.
+		 * @return A positive integer representing the count of characters.
+		 */
+		static int size(Piece piece) {
+			return piece == null ? 0 : piece.size;
+		}
+	}
+}
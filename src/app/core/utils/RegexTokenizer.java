@@ -0,0 +1,72 @@
+package app.core.utils;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a tokenizer whose words are the non-empty matches of a regular expression.
+ * It is the most general and the slowest one. Each thread reuses it's own matcher, so a matcher is not created for every line.
+ * The expression should match whole runs of characters of some kind (e.g.: {@code \p{L}+}), so swapping two words keeps the rest of them.
+ */
+public final class RegexTokenizer implements Tokenizer {
+	private final Pattern pattern;
+	private final ThreadLocal<Matcher> matchers;
+
+	/**
+	 * Creates new instance of the class with the given expression.
+	 * @param pattern The compiled expression.
+	 */
+	public RegexTokenizer(Pattern pattern) {
+		super();
+
+		this.pattern = pattern;
+
+		matchers = ThreadLocal.withInitial(() -> pattern.matcher(""));
+	}
+
+	/**
+	 * Creates new instance of the class with the given expression.
+	 * @param regex The expression, which is compiled without any flags.
+	 * @throws java.util.regex.PatternSyntaxException Thrown when the expression is not valid.
+	 */
+	public RegexTokenizer(String regex) {
+		this(Pattern.compile(regex));
+	}
+
+	/**
+	 * Gets the expression.
+	 * @return A non-null reference to the compiled expression.
+	 */
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	@Override
+	public int tokenize(CharSequence content, int from, int[] tokens, int index, int maxCount) {
+		Matcher matcher = matchers.get().reset(content);
+
+		int count = 0;
+
+		try {
+			// The region keeps the whole content visible, so look-behinds and anchors still see the characters before "from".
+			matcher.useTransparentBounds(true).useAnchoringBounds(false).region(from, content.length());
+
+			while (count < maxCount && matcher.find()) {
+				final int start = matcher.start();
+
+				if (start == matcher.end()) {
+					continue;
+				}
+
+				tokens[index + count * 2] = start;
+				tokens[index + count * 2 + 1] = matcher.end() - start;
+				++count;
+			}
+		} finally {
+			// Don't keep the content alive.
+			matcher.reset("");
+		}
+
+		return count;
+	}
+}
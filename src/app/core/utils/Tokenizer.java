@@ -0,0 +1,22 @@
+package app.core.utils;
+
+/**
+ * Represents a strategy which splits the content of a line into words (tokens).
+ * Lines are parsed lazily and in parts, so a tokenizer is asked to continue right after the last token it found before.
+ * Tokens must not overlap, must not be empty and must be found in order.
+ * Swapping two tokens is expected to keep the boundaries of all tokens, which is the case for tokens which are whole runs
+ * of characters of some kind (e.g.: {@link AsciiWordTokenizer} or {@link WhitespaceTokenizer}).
+ * Implementations must be safe to use from multiple threads at the same time.
+ */
+public interface Tokenizer {
+	/**
+	 * Finds the next tokens of the content.
+	 * @param content The content of the line.
+	 * @param from The offset at which the search begins, which is either zero or the offset just after the end of a token.
+	 * @param tokens The array to which the offset and the length of each token are stored next to each other.
+	 * @param index The index into the array at which the first token is stored.
+	 * @param maxCount The maximum count of tokens to store, for all of which there is space in the array.
+	 * @return A positive integer representing the count of stored tokens. Less than {@code maxCount} when there are no more tokens.
+	 */
+	int tokenize(CharSequence content, int from, int[] tokens, int index, int maxCount);
+}
@@ -0,0 +1,79 @@
+package app.core.utils;
+
+import java.text.BreakIterator;
+import java.util.Locale;
+
+/**
+ * Represents a tokenizer whose words are found by the Unicode word boundary rules (see {@link BreakIterator#getWordInstance(Locale)}).
+ * Only the segments between the boundaries which contain a letter or a digit are words, so whitespace and punctuation are skipped.
+ * Each thread reuses it's own iterator, as creating one is expensive.
+ */
+public final class UnicodeWordTokenizer implements Tokenizer {
+	private final ThreadLocal<BreakIterator> iterators;
+
+	/**
+	 * Creates new instance of the class using the rules of the given locale.
+	 * @param locale The locale.
+	 */
+	public UnicodeWordTokenizer(Locale locale) {
+		super();
+
+		iterators = ThreadLocal.withInitial(() -> BreakIterator.getWordInstance(locale));
+	}
+
+	/**
+	 * Creates new instance of the class using the rules of the root locale.
+	 */
+	public UnicodeWordTokenizer() {
+		this(Locale.ROOT);
+	}
+
+	@Override
+	public int tokenize(CharSequence content, int from, int[] tokens, int index, int maxCount) {
+		final String text = content.toString();
+
+		BreakIterator breaks = iterators.get();
+
+		breaks.setText(text);
+
+		int count = 0;
+
+		try {
+			int start = from == 0 ? breaks.first() : breaks.following(from - 1);
+
+			for (int end = breaks.next(); end != BreakIterator.DONE && count < maxCount; start = end, end = breaks.next()) {
+				if (hasLetterOrDigit(text, start, end)) {
+					tokens[index + count * 2] = start;
+					tokens[index + count * 2 + 1] = end - start;
+					++count;
+				}
+			}
+		} finally {
+			// Don't keep the text alive.
+			breaks.setText("");
+		}
+
+		return count;
+	}
+
+	/**
+	 * Checks whether a segment of the text contains a letter or a digit.
+	 * @param text The text.
+	 * @param start The offset at which the segment begins.
+	 * @param end The offset just after the segment's end.
+	 * @return True when there is a letter or a digit in the segment. Otherwise, false.
+	 */
+	private static boolean hasLetterOrDigit(String text, int start, int end) {
+		for (int z = start; z < end;) {
+			final int codePoint = text.codePointAt(z);
+
+			if (Character.isLetterOrDigit(codePoint)) {
+				return true;
+			}
+
+			z += Character.charCount(codePoint);
+		}
+
+		return false;
+	}
+}
@@ -0,0 +1,68 @@
+package app.core.utils;
+
+/**
+ * Represents a tokenizer whose words are runs of characters which are not whitespace (see {@link Character#isWhitespace(char)}).
+ * It is the cheapest one, as every character is checked against a single condition.
+ */
+public final class WhitespaceTokenizer implements Tokenizer {
+	private static final WhitespaceTokenizer instance;
+
+	static {
+		instance = new WhitespaceTokenizer();
+	}
+
+	/**
+	 * Not meant to be instantiated, as the only instance is shared.
+	 */
+	private WhitespaceTokenizer() {
+		super();
+	}
+
+	/**
+	 * Gets the shared instance.
+	 * @return A non-null reference to the instance.
+	 */
+	public static WhitespaceTokenizer getInstance() {
+		return instance;
+	}
+
+	@Override
+	public int tokenize(CharSequence content, int from, int[] tokens, int index, int maxCount) {
+		final int length = content.length();
+
+		int count = 0;
+
+		for (int z = from; z < length && count < maxCount;) {
+			while (z < length && isWhitespace(content.charAt(z))) {
+				++z;
+			}
+
+			final int start = z;
+
+			while (z < length && !isWhitespace(content.charAt(z))) {
+				++z;
+			}
+
+			if (z != start) {
+				tokens[index + count * 2] = start;
+				tokens[index + count * 2 + 1] = z - start;
+				++count;
+			}
+		}
+
+		return count;
+	}
+
+	/**
+	 * Checks whether the character is whitespace, checking the common ASCII characters first.
+	 * @param character The character.
+	 * @return True when the character is whitespace. Otherwise, false.
+	 */
+	private static boolean isWhitespace(char character) {
+		if (character < 0x80) {
+			return character == ' ' || ('\t' <= character && character <= '\r') || ('\u001C' <= character && character <= '\u001F');
+		}
+
+		return Character.isWhitespace(character);
+	}
+}
@@ -0,0 +1,313 @@
+package app.core.utils;
+
+import java.util.Arrays;
+
+/**
+ * This class represents the words of a line by storing their offsets into the string and their lengths.
+ * Both are packed together in a single array of integers, so a word costs eight bytes instead of a separate object.
+ * Offsetting a long range of words only records the delta in a Fenwick tree, so it costs a logarithmic number of steps instead of
+ * one per word, and the actual offset of a word is resolved when it is read.
+ * The index also references the tokenizer which found the words, so the line knows how to continue parsing.
+ */
+final class WordIndex {
+	private static final int maxDirectOffsets;
+	private static final int[] noWords;
+	private static final WordIndex empty;
+
+	private final Tokenizer tokenizer;
+
+	// Holds the offset and the length of each word next to each other.
+	// The offsets don't include the deltas which are still pending.
+	private int[] words;
+	private int size;
+
+	// Fenwick tree (1-based) of the differences between the pending deltas of consecutive words.
+	// The pending delta of a word is the sum of the differences up to it. Created only when needed.
+	private int[] deltas;
+
+	static {
+		maxDirectOffsets = 64;
+		noWords = new int[0];
+		empty = new WordIndex(AsciiWordTokenizer.getInstance());
+	}
+
+	/**
+	 * Creates an index without any words.
+	 * @param tokenizer The tokenizer which finds the words.
+	 */
+	private WordIndex(Tokenizer tokenizer) {
+		super();
+
+		this.tokenizer = tokenizer;
+
+		words = noWords;
+		size = 0;
+
+		deltas = null;
+	}
+
+	/**
+	 * Creates an index of the given words, without any space reserved for more.
+	 * @param tokenizer The tokenizer which found the words.
+	 * @param words An array holding the offset and the length of each word next to each other. It is copied.
+	 * @param size The count of words.
+	 */
+	WordIndex(Tokenizer tokenizer, int[] words, int size) {
+		super();
+
+		this.tokenizer = tokenizer;
+
+		this.words = Arrays.copyOf(words, size * 2);
+		this.size = size;
+
+		deltas = null;
+	}
+
+	/**
+	 * Gets a shared index without any words found by the default tokenizer (see {@link AsciiWordTokenizer}).
+	 * It is never changed, as there are no words to change.
+	 * @return A non-null reference to the index.
+	 */
+	static WordIndex empty() {
+		return empty;
+	}
+
+	/**
+	 * Gets an index without any words found by the given tokenizer, which is the shared one for the default tokenizer.
+	 * @param tokenizer The tokenizer.
+	 * @return A non-null reference to the index.
+	 */
+	static WordIndex empty(Tokenizer tokenizer) {
+		return tokenizer == empty.tokenizer ? empty : new WordIndex(tokenizer);
+	}
+
+	/**
+	 * Gets the tokenizer which finds the words.
+	 * @return A non-null reference to the tokenizer.
+	 */
+	Tokenizer getTokenizer() {
+		return tokenizer;
+	}
+
+	/**
+	 * Appends words. The space is at least doubled when it runs out, so appending words one batch at a time costs linear time overall.
+	 * @param words An array holding the offset and the length of each word next to each other, which must come after the existing words.
+	 * @param count The count of words to append.
+	 * @throws IllegalArgumentException Thrown when the index is the shared one without any words.
+	 */
+	void addAll(int[] words, int count) throws IllegalArgumentException {
+		if (this == empty) {
+			throw new IllegalArgumentException("The shared index cannot be changed!");
+		}
+
+		// The tree covers only the existing words.
+		applyDeltas();
+
+		if (this.words.length < (size + count) * 2) {
+			this.words = Arrays.copyOf(this.words, Math.max((size + count) * 2, this.words.length * 2));
+		}
+
+		System.arraycopy(words, 0, this.words, size * 2, count * 2);
+		size += count;
+	}
+
+	/**
+	 * Releases the space reserved for words which were not added.
+	 */
+	void trim() {
+		applyDeltas();
+
+		if (size * 2 != words.length) {
+			words = Arrays.copyOf(words, size * 2);
+		}
+	}
+
+	/**
+	 * Gets the count of words.
+	 * @return A positive integer representing the word count.
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Checks the index of a word.
+	 * @param word Index of the word.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	private void checkIndex(int word) throws IndexOutOfBoundsException {
+		if (word < 0 || size <= word) {
+			throw new IndexOutOfBoundsException(word);
+		}
+	}
+
+	/**
+	 * Returns the offset of the word into the string.
+	 * @param word Index of the word.
+	 * @return A positive integer representing the offset into the string.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	int getStartOffset(int word) throws IndexOutOfBoundsException {
+		checkIndex(word);
+
+		return words[word * 2] + getDelta(word);
+	}
+
+	/**
+	 * Returns the offset just after the word's end.
+	 * @param word Index of the word.
+	 * @return A positive integer represending the offset just after the word's end into the string.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	int getEndOffset(int word) throws IndexOutOfBoundsException {
+		checkIndex(word);
+
+		return words[word * 2] + getDelta(word) + words[word * 2 + 1];
+	}
+
+	/**
+	 * Returns the length of the word.
+	 * @param word Index of the word.
+	 * @return A positive integer representing the length of the word.
+	 * @throws IndexOutOfBoundsException Thrown when the index is out of bounds.
+	 */
+	int getLength(int word) throws IndexOutOfBoundsException {
+		checkIndex(word);
+
+		return words[word * 2 + 1];
+	}
+
+	/**
+	 * Gets the pending delta of a word.
+	 * @param word Index of the word.
+	 * @return The delta which is yet to be applied to the word's offset.
+	 */
+	private int getDelta(int word) {
+		if (deltas == null) {
+			return 0;
+		}
+
+		int delta = 0;
+
+		for (int z = word + 1; z > 0; z -= z & -z) {
+			delta += deltas[z];
+		}
+
+		return delta;
+	}
+
+	/**
+	 * Adds a delta to the pending deltas of a word and all words after it.
+	 * @param word Index of the word.
+	 * @param delta The delta.
+	 */
+	private void addDelta(int word, int delta) {
+		for (int z = word + 1; z <= size; z += z & -z) {
+			deltas[z] += delta;
+		}
+	}
+
+	/**
+	 * Applies the pending deltas to the offsets of the words and removes the tree.
+	 */
+	private void applyDeltas() {
+		if (deltas == null) {
+			return;
+		}
+
+		// Turn the tree back into the differences themselves.
+		for (int z = size; z > 0; --z) {
+			final int parent = z + (z & -z);
+
+			if (parent <= size) {
+				deltas[parent] -= deltas[z];
+			}
+		}
+
+		int delta = 0;
+
+		for (int z = 0; z < size; ++z) {
+			delta += deltas[z + 1];
+
+			words[z * 2] += delta;
+		}
+
+		// Not needed anymore.
+		deltas = null;
+	}
+
+	/**
+	 * Offsets the words in the given range by a given delta.
+	 * @param from Index of the first word.
+	 * @param to Index just after the last word.
+	 * @param delta The delta to apply to the words' offsets.
+	 * @throws IllegalArgumentException Thrown when the operation would make the offset of the first word negative.
+	 */
+	void offsetWords(int from, int to, int delta) throws IllegalArgumentException {
+		if (to <= from || delta == 0) {
+			return;
+		}
+
+		// The words are in order, so the first one has the smallest offset.
+		if (getStartOffset(from) + delta < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		// Short ranges are not worth the tree.
+		if (to - from <= maxDirectOffsets) {
+			for (int z = from; z < to; ++z) {
+				words[z * 2] += delta;
+			}
+
+			return;
+		}
+
+		if (deltas == null) {
+			deltas = new int[size + 1];
+		}
+
+		addDelta(from, delta);
+
+		if (to < size) {
+			addDelta(to, -delta);
+		}
+	}
+
+	/**
+	 * Swaps the length of a word with the one of a word in the given other index, which can be the same one.
+	 * @param word Index of the word.
+	 * @param other The index containing the other word.
+	 * @param otherWord Index of the other word.
+	 * @throws IndexOutOfBoundsException Thrown when any of the indexes are out of bounds.
+	 * @throws IllegalArgumentException Thrown when the operation would cause an arithmetical overflow.
+	 */
+	void swapLengths(int word, WordIndex other, int otherWord) throws IndexOutOfBoundsException, IllegalArgumentException {
+		checkIndex(word);
+		other.checkIndex(otherWord);
+
+		final int offset = getStartOffset(word), length = words[word * 2 + 1];
+		final int otherOffset = other.getStartOffset(otherWord), otherLength = other.words[otherWord * 2 + 1];
+
+		if (offset + otherLength < offset || otherOffset + length < otherOffset) {
+			throw new IllegalArgumentException();
+		}
+
+		words[word * 2 + 1] = otherLength;
+		other.words[otherWord * 2 + 1] = length;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+
+		for (int z = 0; z < size; ++z) {
+			if (z != 0) {
+				builder.append(", ");
+			}
+
+			builder.append(String.format("{ offset: %d; length: %d }", getStartOffset(z), words[z * 2 + 1]));
+		}
+
+		return builder.append(']').toString();
+	}
+}
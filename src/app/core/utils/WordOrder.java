@@ -0,0 +1,17 @@
+package app.core.utils;
+
+/**
+ * Represents an order in which the words of a line (see {@link Line#sortWords}) can be sorted.
+ * Sorting is stable, so words which are equal by the order keep their order.
+ */
+public enum WordOrder {
+	/**
+	 * Sorts the words lexicographically, the same as {@link String#compareTo} orders strings.
+	 */
+	CONTENT,
+
+	/**
+	 * Sorts the words by their lengths, from the shortest to the longest one.
+	 */
+	LENGTH,
+}
@@ -0,0 +1,185 @@
+package app.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the throughput of a concurrent session (see {@link SessionOption#CONCURRENT}) with a growing count of threads,
+ * against a session without locks used by a single thread. Two mixes of operations are measured:
+ * swapping words and lines across stripes, and mostly reading words and the word counts of all lines while some lines are swapped.
+ * The document is either the given file or a generated one, and is never written down.
+ *
+ * Usage: {@code java -cp <classes> app.core.ConcurrencyBenchmark [file] [seconds]}
+ */
+final class ConcurrencyBenchmark {
+	private static final int[] threadCounts;
+	private static final int batchSize;
+
+	static {
+		threadCounts = new int[] { 1, 2, 4, 8, 16 };
+
+		// Operations performed between checks whether to stop.
+		batchSize = 256;
+	}
+
+	/**
+	 * Not meant to be instantiated, as it only runs the benchmark.
+	 */
+	private ConcurrencyBenchmark() {
+		super();
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * @param args The path to the document and the seconds for which each case is measured, both optional.
+	 * @throws Exception Thrown when the document couldn't be read or generated, or any thread is interrupted.
+	 */
+	public static void main(String[] args) throws Exception {
+		final Path file = args.length > 0 ? Paths.get(args[0]) : generate();
+		final double seconds = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+
+		System.out.printf("%d processors%n", Runtime.getRuntime().availableProcessors());
+
+		try {
+			for (boolean reads : new boolean[] { false, true }) {
+				final String mix = reads ? "reads" : "swaps";
+
+				AppCore plain = new AppCore(file.toString());
+
+				System.out.printf("%s, without locks, 1 thread: %.2f M operations/s%n", mix, measure(plain, 1, reads, seconds) / 1e6);
+
+				AppCore concurrent = new AppCore(file.toString(), SessionOption.CONCURRENT);
+
+				for (int threads : threadCounts) {
+					System.out.printf("%s, concurrent, %d threads: %.2f M operations/s%n", mix, threads, measure(concurrent, threads, reads, seconds) / 1e6);
+				}
+			}
+		} finally {
+			if (args.length == 0) {
+				Files.delete(file);
+			}
+		}
+	}
+
+	/**
+	 * Generates a document of random words.
+	 * @return A non-null reference to the path to the document, which is a temporary file.
+	 * @throws IOException Thrown when the document couldn't be written down.
+	 */
+	private static Path generate() throws IOException {
+		final String[] words = { "alpha", "beta", "gamma", "delta", "x1", "_u", "Zed", "q" };
+
+		Random random = new Random(1);
+		StringBuilder content = new StringBuilder();
+
+		for (int z = 0; z < 200000; ++z) {
+			final int wordCount = 1 + random.nextInt(8);
+
+			for (int y = 0; y < wordCount; ++y) {
+				content.append(words[random.nextInt(words.length)]).append(y + 1 == wordCount ? "" : " ");
+			}
+
+			// The last line is not followed by a line feed (LF), which would add an empty line.
+			if (z + 1 != 200000) {
+				content.append('\n');
+			}
+		}
+
+		Path file = Files.createTempFile("concurrency", ".txt");
+
+		Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+		return file;
+	}
+
+	/**
+	 * Measures the throughput of a mix of operations, after warming up for a second.
+	 * @param appCore The session.
+	 * @param threads The count of threads.
+	 * @param reads Whether the operations are mostly reads, otherwise swaps.
+	 * @param seconds The seconds for which the operations are measured.
+	 * @return The count of operations per second.
+	 * @throws InterruptedException Thrown when the measuring thread is interrupted.
+	 */
+	private static double measure(AppCore appCore, int threads, boolean reads, double seconds) throws InterruptedException {
+		run(appCore, threads, reads, 1);
+
+		return run(appCore, threads, reads, seconds) / seconds;
+	}
+
+	/**
+	 * Runs a mix of operations on all threads for the given time.
+	 * @param appCore The session.
+	 * @param threads The count of threads.
+	 * @param reads Whether the operations are mostly reads, otherwise swaps.
+	 * @param seconds The seconds for which the operations run.
+	 * @return The count of performed operations.
+	 * @throws InterruptedException Thrown when the measuring thread is interrupted.
+	 */
+	private static long run(AppCore appCore, int threads, boolean reads, double seconds) throws InterruptedException {
+		final int lineCount = appCore.lineCount();
+		final long total = appCore.totalWordCount();
+
+		AtomicLong operations = new AtomicLong();
+		AtomicBoolean stop = new AtomicBoolean();
+
+		Thread[] workers = new Thread[threads];
+
+		for (int z = 0; z < threads; ++z) {
+			final Random random = new Random(z);
+
+			workers[z] = new Thread(() -> {
+				long count = 0;
+
+				while (!stop.get()) {
+					for (int y = 0; y < batchSize; ++y) {
+						final int first = random.nextInt(lineCount), second = random.nextInt(lineCount);
+						final int kind = random.nextInt(reads ? 16 : 2);
+
+						try {
+							if (kind == 0) {
+								appCore.swapLines(first, second);
+							} else if (kind == 1) {
+								appCore.swapWords(first, 0, second, 0);
+							} else if (kind < 6) {
+								appCore.getWord(first, 0);
+							} else if (kind < 10) {
+								appCore.wordCountOnLine(first);
+							} else if (kind < 13) {
+								appCore.wordCountBeforeLine(first);
+							} else {
+								appCore.lineOfWord(random.nextLong(total));
+							}
+						} catch (IndexOutOfBoundsException exception) {
+							// Every generated line has words, but a given document might have lines without them.
+						}
+					}
+
+					count += batchSize;
+				}
+
+				operations.addAndGet(count);
+			});
+		}
+
+		for (Thread worker : workers) {
+			worker.start();
+		}
+
+		Thread.sleep((long) (seconds * 1000));
+
+		stop.set(true);
+
+		for (Thread worker : workers) {
+			worker.join();
+		}
+
+		return operations.get();
+	}
+}
@@ -0,0 +1,300 @@
+package app.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stress test of a concurrent session (see {@link SessionOption#CONCURRENT}), in the manner of a concurrency stress harness:
+ * many short trials, each racing a few threads over a small random document so different interleavings are hit.
+ * The threads swap words and lines across stripes and within them, move words on lines, add empty lines and remove them,
+ * and query the word counts of all lines, which are counted lazily by whichever thread needs them first.
+ * As words are only moved and only empty lines are added or removed, the word count of the whole content never changes,
+ * which the threads check while racing. Once they are done, the words of the content must be the same as before and the word counts
+ * of all lines must match the lines.
+ * Empty lines added by the threads are counted, and only as many lines are removed as were added, so no line of the document is ever removed.
+ *
+ * Usage: {@code java -cp <classes> app.core.ConcurrencyStressTest [seed] [trials] [threads]}
+ */
+final class ConcurrencyStressTest {
+	private static final String[] words;
+	private static final int operationsPerThread;
+
+	static {
+		words = new String[] { "alpha", "b", "cc", "x1", "42", "_u", "Zed", "q" };
+		operationsPerThread = 2000;
+	}
+
+	/**
+	 * Not meant to be instantiated, as it only runs the test.
+	 */
+	private ConcurrencyStressTest() {
+		super();
+	}
+
+	/**
+	 * Runs the test.
+	 * @param args The seed of the random documents and operations, the count of trials and the count of threads, all optional.
+	 * @throws Exception Thrown when the test fails or any operation throws an unexpected exception.
+	 */
+	public static void main(String[] args) throws Exception {
+		final long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		final int trials = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+		final int threads = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+
+		Random random = new Random(seed);
+
+		for (int trial = 0; trial < trials; ++trial) {
+			try {
+				runTrial(random, threads);
+			} catch (AssertionError error) {
+				throw new AssertionError("Seed " + seed + ", trial " + trial + ": " + error.getMessage(), error);
+			}
+		}
+
+		System.out.println("ok " + trials);
+	}
+
+	/**
+	 * Runs the threads over a new random document and checks the content afterwards.
+	 * @param random The source of randomness.
+	 * @param threads The count of threads.
+	 * @throws Exception Thrown when the trial fails or any operation throws an unexpected exception.
+	 */
+	private static void runTrial(Random random, int threads) throws Exception {
+		Path file = Files.createTempFile("stress", ".txt");
+
+		try {
+			// Some documents span many stripes of lines, others only a few.
+			final int lineCount = 1 + random.nextInt(random.nextInt(5) == 0 ? 5000 : 400);
+
+			StringBuilder content = new StringBuilder();
+
+			for (int z = 0; z < lineCount; ++z) {
+				final int wordCount = random.nextInt(6);
+
+				for (int y = 0; y < wordCount; ++y) {
+					content.append(words[random.nextInt(words.length)]).append(y + 1 == wordCount ? "" : " ");
+				}
+
+				content.append('\n');
+			}
+
+			Files.write(file, content.toString().getBytes(StandardCharsets.UTF_8));
+
+			final SessionOption[][] optionSets = {
+				{ SessionOption.CONCURRENT },
+				{ SessionOption.CONCURRENT, SessionOption.WARM_UP },
+				{ SessionOption.CONCURRENT, SessionOption.MEMORY_MAPPED },
+			};
+
+			try (AppCore appCore = new AppCore(file.toString(), optionSets[random.nextInt(optionSets.length)])) {
+				race(appCore, random, threads);
+			}
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/**
+	 * Races the threads over a session and checks the content afterwards.
+	 * @param appCore The session.
+	 * @param random The source of randomness.
+	 * @param threads The count of threads.
+	 * @throws Exception Thrown when the trial fails or any operation throws an unexpected exception.
+	 */
+	private static void race(AppCore appCore, Random random, int threads) throws Exception {
+		final int lineCount = appCore.lineCount();
+		final ArrayList<String> wordsBefore = collectWords(appCore);
+		final long totalBefore = wordsBefore.size();
+
+		// Sometimes the word counts are counted before the race, otherwise the first thread to need them counts them while the others race.
+		if (random.nextBoolean()) {
+			appCore.totalWordCount();
+		}
+
+		final CountDownLatch start = new CountDownLatch(1);
+		final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+		// Empty lines added and not removed yet, so a thread removes only a line which was added.
+		final AtomicInteger addedLines = new AtomicInteger();
+
+		Thread[] workers = new Thread[threads];
+
+		for (int z = 0; z < threads; ++z) {
+			final long threadSeed = random.nextLong();
+
+			workers[z] = new Thread(() -> {
+				Random operations = new Random(threadSeed);
+
+				try {
+					start.await();
+
+					for (int y = 0; y < operationsPerThread; ++y) {
+						operate(appCore, operations, lineCount, totalBefore, addedLines);
+					}
+				} catch (Throwable throwable) {
+					failure.compareAndSet(null, throwable);
+				}
+			});
+
+			workers[z].start();
+		}
+
+		start.countDown();
+
+		for (Thread worker : workers) {
+			worker.join(60000);
+
+			if (worker.isAlive()) {
+				throw new AssertionError("A thread didn't finish in a minute, the locks are likely in a deadlock.");
+			}
+		}
+
+		if (failure.get() != null) {
+			throw new AssertionError("A thread failed: " + failure.get(), failure.get());
+		}
+
+		check(appCore, lineCount + addedLines.get(), wordsBefore);
+	}
+
+	/**
+	 * Performs a random operation.
+	 * @param appCore The session.
+	 * @param random The source of randomness of the thread.
+	 * @param lineCount The count of lines of the document, before which all words are.
+	 * @param total The word count of the whole content.
+	 * @param addedLines The count of empty lines added and not removed yet.
+	 * @throws AssertionError Thrown when the word counts don't match the words.
+	 */
+	private static void operate(AppCore appCore, Random random, int lineCount, long total, AtomicInteger addedLines) throws AssertionError {
+		// Half of the lines are near the start, so the stripes of the first lines are contended, while the rest are anywhere.
+		final int first = random.nextBoolean() ? random.nextInt(Math.min(lineCount, 130)) : random.nextInt(lineCount);
+
+		// The second line is usually in another stripe of 64 lines, so the two stripes are locked in order.
+		final int second = random.nextInt(4) == 0 ? random.nextInt(lineCount) : (first + 64 * (1 + random.nextInt(8))) % lineCount;
+
+		final int kind = random.nextInt(100);
+
+		try {
+			if (kind < 40) {
+				appCore.swapWords(first, random.nextInt(3), second, random.nextInt(3));
+			} else if (kind < 70) {
+				appCore.swapLines(first, second);
+			} else if (kind < 74) {
+				appCore.reverseWords(first);
+			} else if (kind < 77) {
+				appCore.rotateWords(first, random.nextInt(5) - 2);
+			} else if (kind < 80) {
+				appCore.addEmptyLine();
+
+				addedLines.incrementAndGet();
+			} else if (kind < 83) {
+				if (addedLines.getAndUpdate((int count) -> count == 0 ? 0 : count - 1) != 0) {
+					appCore.removeLastLine();
+				}
+			} else if (kind < 85) {
+				appCore.isLastLineEmpty();
+			} else if (kind < 88) {
+				appCore.wordCountOnLine(first);
+			} else if (kind < 91) {
+				expect("total word count", total, appCore.totalWordCount());
+			} else if (kind < 94) {
+				// All words are on the lines of the document, as the added lines are empty.
+				expect("word count before the added lines", total, appCore.wordCountBeforeLine(lineCount));
+			} else if (kind < 97) {
+				if (total != 0) {
+					final int line = appCore.lineOfWord(random.nextLong(total));
+
+					if (lineCount <= line) {
+						throw new AssertionError("A word was found on the added line " + line + ".");
+					}
+				}
+			} else {
+				final int line = appCore.nextLineWithWords(first);
+
+				if (lineCount <= line) {
+					throw new AssertionError("The added line " + line + " has words.");
+				}
+			}
+		} catch (IndexOutOfBoundsException exception) {
+			// A word index which was in bounds might not be after the lines are swapped by another thread.
+		} catch (NoSuchElementException exception) {
+			throw new AssertionError("A line was removed which was never added.", exception);
+		}
+	}
+
+	/**
+	 * Checks the content after all threads are done.
+	 * @param appCore The session.
+	 * @param lineCount The expected count of lines.
+	 * @param wordsBefore The sorted words of the content before the race.
+	 * @throws AssertionError Thrown when the content doesn't match.
+	 */
+	private static void check(AppCore appCore, int lineCount, ArrayList<String> wordsBefore) throws AssertionError {
+		expect("line count", lineCount, appCore.lineCount());
+
+		if (!collectWords(appCore).equals(wordsBefore)) {
+			throw new AssertionError("The words of the content changed.");
+		}
+
+		long before = 0;
+
+		for (int z = 0; z < lineCount; ++z) {
+			expect("word count before line " + z, before, appCore.wordCountBeforeLine(z));
+
+			final int count = appCore.wordCountOnLine(z);
+
+			if (count != 0) {
+				expect("line of word " + before, z, appCore.lineOfWord(before));
+			}
+
+			before += count;
+		}
+
+		expect("total word count", before, appCore.totalWordCount());
+		expect("word count before the end", before, appCore.wordCountBeforeLine(lineCount));
+	}
+
+	/**
+	 * Collects all words of the content.
+	 * @param appCore The session.
+	 * @return A non-null reference to the sorted words.
+	 */
+	private static ArrayList<String> collectWords(AppCore appCore) {
+		ArrayList<String> found = new ArrayList<String>();
+
+		for (int z = 0; z < appCore.lineCount(); ++z) {
+			final int count = appCore.wordCountOnLine(z);
+
+			for (int y = 0; y < count; ++y) {
+				found.add(appCore.getWord(z, y));
+			}
+		}
+
+		Collections.sort(found);
+
+		return found;
+	}
+
+	/**
+	 * Checks that a value is the expected one.
+	 * @param name The name of the value.
+	 * @param expected The expected value.
+	 * @param actual The actual value.
+	 * @throws AssertionError Thrown when the values differ.
+	 */
+	private static void expect(String name, long expected, long actual) throws AssertionError {
+		if (expected != actual) {
+			throw new AssertionError("The " + name + " is " + actual + " instead of " + expected + ".");
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package app.core.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the two paths of {@link AsciiWordTokenizer} on the ASCII lines of the corpus (see {@link Benchmark}): lines stored as ASCII bytes,
+ * which are classified eight bytes in each step (SWAR), and the scalar scan of one character at a time, which is used for all other lines.
+ * The scalar scan is measured both on strings and on a plain view of the same bytes, so the difference isn't only the cost of reading a character.
+ * Both paths are first checked to find exactly the same words. The lines are measured as they are and joined into long lines,
+ * on which the blocks of 64 bytes are full more often.
+ *
+ * Usage: {@code java -cp <classes> app.core.utils.AsciiScanBenchmark [corpus]}
+ */
+final class AsciiScanBenchmark {
+	private static final int joinedLines;
+
+	static {
+		joinedLines = 50;
+	}
+
+	/**
+	 * Not meant to be instantiated, as it only runs the benchmark.
+	 */
+	private AsciiScanBenchmark() {
+		super();
+	}
+
+	/**
+	 * Represents a view of ASCII bytes which isn't {@link AsciiSequence}, so the tokenizer scans it one character at a time.
+	 */
+	private static final class ByteView implements CharSequence {
+		private final byte[] bytes;
+
+		/**
+		 * Creates new instance of the class.
+		 * @param bytes The characters.
+		 */
+		ByteView(byte[] bytes) {
+			super();
+
+			this.bytes = bytes;
+		}
+
+		@Override
+		public int length() {
+			return bytes.length;
+		}
+
+		@Override
+		public char charAt(int index) {
+			return (char) bytes[index];
+		}
+
+		@Override
+		public CharSequence subSequence(int start, int end) {
+			return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+		}
+
+		@Override
+		public String toString() {
+			return new String(bytes, StandardCharsets.US_ASCII);
+		}
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * @param args The path to the corpus, which is optional.
+	 * @throws IOException Thrown when the corpus couldn't be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		final List<String> corpus = Benchmark.corpus(args).stream().filter((String line) -> line.chars().allMatch((int character) -> character < 0x80)).collect(Collectors.toList());
+
+		measure("lines", corpus);
+
+		String[] joined = new String[(corpus.size() + joinedLines - 1) / joinedLines];
+
+		for (int z = 0; z < joined.length; ++z) {
+			joined[z] = String.join(" ", corpus.subList(z * joinedLines, Math.min(corpus.size(), (z + 1) * joinedLines)));
+		}
+
+		measure("joined lines", Arrays.asList(joined));
+	}
+
+	/**
+	 * Checks that both paths find the same words, and measures them.
+	 * @param name The name of the lines.
+	 * @param lines The lines, which consist only of ASCII characters.
+	 * @throws AssertionError Thrown when the paths find different words.
+	 */
+	private static void measure(String name, List<String> lines) throws AssertionError {
+		final String[] strings = lines.toArray(String[]::new);
+		final CharSequence[] views = new CharSequence[strings.length];
+		final CharSequence[] sequences = new CharSequence[strings.length];
+
+		int maxLength = 0;
+
+		for (int z = 0; z < strings.length; ++z) {
+			final byte[] bytes = strings[z].getBytes(StandardCharsets.US_ASCII);
+
+			views[z] = new ByteView(bytes);
+			sequences[z] = new AsciiSequence(bytes, 0, bytes.length);
+
+			maxLength = Math.max(maxLength, bytes.length);
+		}
+
+		// Words are never empty and never next to each other, so there are at most half as many words as characters, rounded up.
+		final int[] tokens = new int[maxLength + 2];
+		final int[] scalarTokens = new int[maxLength + 2];
+
+		for (int z = 0; z < strings.length; ++z) {
+			final int count = tokenize(sequences[z], tokens);
+			final int scalarCount = tokenize(strings[z], scalarTokens);
+
+			if (!Arrays.equals(tokens, 0, count * 2, scalarTokens, 0, scalarCount * 2)) {
+				throw new AssertionError("The words of \"" + strings[z] + "\" differ.");
+			}
+		}
+
+		Benchmark.measure(name + ", scalar, strings", () -> tokenizeAll(strings, tokens));
+		Benchmark.measure(name + ", scalar, bytes", () -> tokenizeAll(views, tokens));
+		Benchmark.measure(name + ", SWAR, bytes", () -> tokenizeAll(sequences, tokens));
+	}
+
+	/**
+	 * Finds the words of all lines.
+	 * @param lines The lines.
+	 * @param tokens The array to which the words are stored, large enough for the words of any line.
+	 * @return A positive integer representing the count of words.
+	 */
+	private static long tokenizeAll(CharSequence[] lines, int[] tokens) {
+		long count = 0;
+
+		for (CharSequence line : lines) {
+			count += tokenize(line, tokens);
+		}
+
+		return count;
+	}
+
+	/**
+	 * Finds the words of a line.
+	 * @param line The line.
+	 * @param tokens The array to which the words are stored, large enough for the words of the line.
+	 * @return A positive integer representing the count of words.
+	 */
+	private static int tokenize(CharSequence line, int[] tokens) {
+		return AsciiWordTokenizer.getInstance().tokenize(line, 0, tokens, 0, tokens.length / 2);
+	}
+}
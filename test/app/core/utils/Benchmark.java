@@ -0,0 +1,137 @@
+package app.core.utils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Utility class shared by the benchmarks, which gives them the same corpus and measures them the same way.
+ * Each benchmark is a plain program, as the project has no build which would bring a benchmark harness,
+ * so every measured task runs a few rounds to warm up first and the median of the measured rounds is reported.
+ * The result of each task is summed and printed, so the work can't be left out as unused.
+ *
+ * This class is not extendable nor instanciatable as it is only a utility class.
+ */
+final class Benchmark {
+	private static final int warmUpRounds;
+	private static final int measuredRounds;
+
+	private static final String[] words;
+
+	static {
+		warmUpRounds = 10;
+		measuredRounds = 15;
+
+		words = new String[] {
+			"the", "of", "and", "a", "to", "in", "is", "you", "that", "it", "he", "was", "for", "on", "are", "as", "with", "his", "they", "I",
+			"at", "be", "this", "have", "from", "or", "one", "had", "by", "word", "but", "not", "what", "all", "were", "we", "when", "your",
+			"can", "said", "there", "use", "an", "each", "which", "she", "do", "how", "their", "if", "will", "up", "other", "about", "out",
+			"snake_case", "camelCase", "x86", "utf8", "Java17", "line_count", "na\u00EFve", "caf\u00E9", "stra\u00DFe",
+		};
+	}
+
+	/**
+	 * Because the constructor is private, this will ensure that the class doesn't get instanciated.
+	 */
+	private Benchmark() {
+		super();
+	}
+
+	/**
+	 * Gets the lines of the corpus, which is either read from the given file or generated.
+	 * The generated corpus is mostly ASCII prose with numbers, identifiers and punctuation, and a few non-ASCII words.
+	 * @param args The arguments of the benchmark, whose first one is the path to the corpus, if any.
+	 * @return A non-null reference to the lines.
+	 * @throws IOException Thrown when the file couldn't be read.
+	 */
+	static List<String> corpus(String[] args) throws IOException {
+		if (args.length > 0) {
+			return Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8);
+		}
+
+		Random random = new Random(1);
+		ArrayList<String> lines = new ArrayList<String>();
+
+		for (int z = 0; z < 200000; ++z) {
+			StringBuilder line = new StringBuilder();
+
+			// Some lines are empty and a few are long, the same as in most text files.
+			final int wordCount = random.nextInt(10) == 0 ? 0 : random.nextInt(50) == 0 ? 200 + random.nextInt(400) : 1 + random.nextInt(16);
+
+			for (int y = 0; y < wordCount; ++y) {
+				if (y != 0) {
+					line.append(random.nextInt(12) == 0 ? ", " : random.nextInt(20) == 0 ? " - " : " ");
+				}
+
+				line.append(random.nextInt(15) == 0 ? Integer.toString(random.nextInt(100000)) : words[random.nextInt(words.length)]);
+			}
+
+			if (wordCount != 0) {
+				line.append('.');
+			}
+
+			lines.add(line.toString());
+		}
+
+		return lines;
+	}
+
+	/**
+	 * Gets the lines of the corpus as lines stored the same way as when they are read from a file, as ASCII bytes when possible.
+	 * @param corpus The lines of the corpus.
+	 * @return A non-null reference to the lines.
+	 */
+	static Line[] toLines(List<String> corpus) {
+		Line[] lines = new Line[corpus.size()];
+
+		for (int z = 0; z < lines.length; ++z) {
+			final String line = corpus.get(z);
+
+			if (line.chars().allMatch((int character) -> character < 0x80 && character != '\r')) {
+				lines[z] = new Line(line.getBytes(StandardCharsets.US_ASCII), 0, line.length());
+			} else {
+				lines[z] = new Line(line);
+			}
+		}
+
+		return lines;
+	}
+
+	/**
+	 * Measures a task and prints the median time of a round.
+	 * @param name The name of the task.
+	 * @param task The task, which returns a result depending on all of it's work.
+	 * @return The median time of a round in nanoseconds.
+	 */
+	static long measure(String name, LongSupplier task) {
+		long sink = 0;
+
+		for (int z = 0; z < warmUpRounds; ++z) {
+			sink += task.getAsLong();
+		}
+
+		long[] times = new long[measuredRounds];
+
+		for (int z = 0; z < measuredRounds; ++z) {
+			final long start = System.nanoTime();
+
+			sink += task.getAsLong();
+
+			times[z] = System.nanoTime() - start;
+		}
+
+		Arrays.sort(times);
+
+		final long median = times[measuredRounds / 2];
+
+		System.out.printf("%-40s %10.3f ms (min %.3f, max %.3f) [%d]%n", name, median / 1e6, times[0] / 1e6, times[measuredRounds - 1] / 1e6, sink);
+
+		return median;
+	}
+}
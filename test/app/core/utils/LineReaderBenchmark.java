@@ -0,0 +1,109 @@
+package app.core.utils;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares reading all lines of a file by {@link LineReader}, which decodes blocks of bytes at once, with the reader it replaced,
+ * which read one character at a time from a {@link FileReader} and built each line in a new string builder.
+ * The file is the corpus (see {@link Benchmark}) written down to a temporary file, with a line feed (LF) after each line.
+ *
+ * Usage: {@code java -cp <classes> app.core.utils.LineReaderBenchmark [corpus]}
+ */
+final class LineReaderBenchmark {
+	/**
+	 * Not meant to be instantiated, as it only runs the benchmark.
+	 */
+	private LineReaderBenchmark() {
+		super();
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * @param args The path to the corpus, which is optional.
+	 * @throws IOException Thrown when the corpus couldn't be read or written down.
+	 */
+	public static void main(String[] args) throws IOException {
+		final List<String> corpus = Benchmark.corpus(args);
+
+		File file = File.createTempFile("corpus", ".txt");
+
+		file.deleteOnExit();
+
+		Files.write(file.toPath(), corpus, StandardCharsets.UTF_8);
+
+		final String path = file.getPath();
+
+		System.out.printf("%d lines, %.1f MB%n", corpus.size(), file.length() / 1e6);
+
+		Benchmark.measure("FileReader.read() per character (before)", () -> {
+			try {
+				return readLinesBefore(path).size();
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+		});
+
+		Benchmark.measure("LineReader", () -> {
+			try (LineReader reader = new LineReader(path, StandardCharsets.UTF_8)) {
+				return reader.getLines().size();
+			} catch (IOException exception) {
+				throw new RuntimeException(exception);
+			}
+		});
+	}
+
+	/**
+	 * Reads all lines the same way as the reader which {@link LineReader} replaced.
+	 * @param path The path to the file.
+	 * @return A non-null reference to the lines.
+	 * @throws IOException Thrown when the file couldn't be read.
+	 */
+	private static ArrayList<Line> readLinesBefore(String path) throws IOException {
+		ArrayList<Line> lines = new ArrayList<Line>();
+
+		try (FileReader input = new FileReader(path, StandardCharsets.UTF_8)) {
+			boolean finished = false;
+
+			while (!finished) {
+				StringBuilder line = new StringBuilder();
+
+				while (true) {
+					int c = input.read();
+
+					if (c == -1) {
+						finished = true;
+
+						break;
+					} else if ((char) c == '\n') {
+						break;
+					} else if ((char) c == '\r') {
+						c = input.read();
+
+						if (c == -1) {
+							finished = true;
+
+							break;
+						} else if ((char) c == '\n') {
+							break;
+						}
+
+						// '\r' (CR) is skipped along with the character after it.
+						continue;
+					}
+
+					line.append((char) c);
+				}
+
+				lines.add(line.isEmpty() ? Line.empty() : new Line(line.toString()));
+			}
+		}
+
+		return lines;
+	}
+}
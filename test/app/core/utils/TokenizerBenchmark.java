@@ -0,0 +1,63 @@
+package app.core.utils;
+
+import java.io.IOException;
+
+/**
+ * Compares the built-in tokenizers (see {@link Tokenizer}) on the same corpus (see {@link Benchmark}), so the cheapest one which still finds
+ * the right words for a kind of file can be chosen. Each tokenizer counts the words of all lines and parses all of them into indexes,
+ * the same as the word counts and the word operations do. The lines are stored the same way as when they are read from a file.
+ * The count of words is printed next to the time, as the tokenizers don't agree on what a word is.
+ *
+ * Usage: {@code java -cp <classes> app.core.utils.TokenizerBenchmark [corpus]}
+ */
+final class TokenizerBenchmark {
+	/**
+	 * Not meant to be instantiated, as it only runs the benchmark.
+	 */
+	private TokenizerBenchmark() {
+		super();
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * @param args The path to the corpus, which is optional.
+	 * @throws IOException Thrown when the corpus couldn't be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		final Line[] lines = Benchmark.toLines(Benchmark.corpus(args));
+
+		measure("whitespace", WhitespaceTokenizer.getInstance(), lines);
+		measure("ASCII word", AsciiWordTokenizer.getInstance(), lines);
+		measure("Unicode word", new UnicodeWordTokenizer(), lines);
+		measure("regex \\d*(?!\\d)\\w+", new RegexTokenizer("\\d*(?!\\d)\\w+"), lines);
+		measure("regex \\S+", new RegexTokenizer("\\S+"), lines);
+	}
+
+	/**
+	 * Measures counting and parsing the words of all lines by a tokenizer.
+	 * @param name The name of the tokenizer.
+	 * @param tokenizer The tokenizer.
+	 * @param lines The lines.
+	 */
+	private static void measure(String name, Tokenizer tokenizer, Line[] lines) {
+		Benchmark.measure(name + ", count", () -> {
+			long count = 0;
+
+			for (Line line : lines) {
+				count += LineParser.countWords(line, tokenizer);
+			}
+
+			return count;
+		});
+
+		Benchmark.measure(name + ", parse", () -> {
+			long count = 0;
+
+			for (Line line : lines) {
+				count += LineParser.getWords(line, WordIndex.empty(tokenizer), Integer.MAX_VALUE).size();
+			}
+
+			return count;
+		});
+	}
+}
@@ -0,0 +1,105 @@
+package app.core.utils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+
+/**
+ * Compares parsing the words of the corpus (see {@link Benchmark}) by the hand written scanner ({@link AsciiWordTokenizer}) through {@link LineParser},
+ * with the regular expression {@code \d*(?!\d)\w+} used the way it was before the scanner: a new matcher for each line, collecting the words
+ * into a list, and a stream of the results when only the first words are needed.
+ * The scanner is measured on lines stored as strings and as ASCII bytes, which it classifies 64 bytes at a time.
+ *
+ * Usage: {@code java -cp <classes> app.core.utils.WordScannerBenchmark [corpus]}
+ */
+final class WordScannerBenchmark {
+	private static final Pattern wordPattern;
+
+	static {
+		wordPattern = Pattern.compile("\\d*(?!\\d)\\w+", Pattern.UNICODE_CASE);
+	}
+
+	/**
+	 * Not meant to be instantiated, as it only runs the benchmark.
+	 */
+	private WordScannerBenchmark() {
+		super();
+	}
+
+	/**
+	 * Runs the benchmark.
+	 * @param args The path to the corpus, which is optional.
+	 * @throws IOException Thrown when the corpus couldn't be read.
+	 */
+	public static void main(String[] args) throws IOException {
+		final List<String> corpus = Benchmark.corpus(args);
+		final Line[] asciiLines = Benchmark.toLines(corpus);
+		final Line[] stringLines = corpus.stream().map(Line::new).toArray(Line[]::new);
+
+		Benchmark.measure("regex, all words (before)", () -> {
+			long count = 0;
+
+			for (String line : corpus) {
+				Matcher matcher = wordPattern.matcher(line);
+
+				ArrayList<int[]> list = new ArrayList<int[]>();
+
+				while (matcher.find()) {
+					final int start = matcher.start();
+
+					list.add(new int[] { start, matcher.end() - start });
+				}
+
+				count += list.toArray(int[][]::new).length;
+			}
+
+			return count;
+		});
+
+		Benchmark.measure("regex, first 2 words (before)", () -> {
+			long count = 0;
+
+			for (String line : corpus) {
+				Matcher matcher = wordPattern.matcher(line);
+
+				ArrayList<int[]> list = new ArrayList<int[]>();
+
+				matcher.results().limit(2).forEach(
+					(MatchResult result) -> {
+						final int start = result.start();
+
+						list.add(new int[] { start, result.end() - start });
+					}
+				);
+
+				count += list.toArray(int[][]::new).length;
+			}
+
+			return count;
+		});
+
+		Benchmark.measure("scanner, all words, strings", () -> countWords(stringLines, Integer.MAX_VALUE));
+		Benchmark.measure("scanner, first 2 words, strings", () -> countWords(stringLines, 2));
+		Benchmark.measure("scanner, all words, ASCII bytes", () -> countWords(asciiLines, Integer.MAX_VALUE));
+		Benchmark.measure("scanner, first 2 words, ASCII bytes", () -> countWords(asciiLines, 2));
+	}
+
+	/**
+	 * Parses the words of all lines through {@link LineParser}.
+	 * @param lines The lines.
+	 * @param maxCount The maximum count of words to be parsed on each line.
+	 * @return A positive integer representing the count of parsed words.
+	 */
+	private static long countWords(Line[] lines, int maxCount) {
+		long count = 0;
+
+		for (Line line : lines) {
+			count += LineParser.getWords(line, maxCount).size();
+		}
+
+		return count;
+	}
+}
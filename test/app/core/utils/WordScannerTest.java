@@ -0,0 +1,311 @@
+package app.core.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Differential test of the hand written word scanner ({@link AsciiWordTokenizer}) and {@link LineParser} against the regular expression
+ * which they replaced, {@code \d*(?!\d)\w+}, over randomized lines.
+ * The lines mix ASCII word characters, runs of digits before and after letters, non-ASCII letters and digits (which are not {@code \w}
+ * without the {@code UNICODE_CHARACTER_CLASS} flag, so they must split words the same way), combining marks and supplementary characters,
+ * including lone surrogates. Every line is scanned as a string, as pieces and, when it is ASCII, as bytes at a random offset of a larger array,
+ * so the blocks of 64 bytes begin at any position. Words are also parsed in random batches, the same as lines are parsed lazily.
+ *
+ * Usage: {@code java -cp <classes> app.core.utils.WordScannerTest [seed] [trials]}
+ */
+final class WordScannerTest {
+	private static final Pattern wordPattern;
+
+	// Fragments from which the lines are put together, grouped so each kind is picked equally often.
+	private static final String[][] fragments;
+
+	static {
+		// The same expression and flags as the ones used before the scanner.
+		wordPattern = Pattern.compile("\\d*(?!\\d)\\w+", Pattern.UNICODE_CASE);
+
+		fragments = new String[][] {
+			{ "a", "Z", "_", "q", "word", "A_b", "x9" },
+			{ "0", "7", "42", "007", "123456789", "1_", "9a" },
+			{ " ", "  ", "\t", ".", ",", "-", "'", "(", ")", "!" },
+			{ "\u00E9", "\u00DF", "\u01C5", "\u0436", "\u03A9", "\u0130", "\u212A", "\u017F" },
+			{ "\u0663", "\u0967", "\uFF11", "\u00B2", "\u2160" },
+			{ "\u0301", "\u0308", "\u200D", "\u00A0", "\u3000" },
+			{ "\uD835\uDC9C", "\uD83D\uDE00", "\uD801\uDC00", "\uD835\uDFCE", "\uD800", "\uDC00" },
+		};
+	}
+
+	/**
+	 * Not meant to be instantiated, as it only runs the test.
+	 */
+	private WordScannerTest() {
+		super();
+	}
+
+	/**
+	 * Runs the test.
+	 * @param args The seed of the random lines and the count of them, both optional.
+	 * @throws AssertionError Thrown when the words of any line don't match the ones of the expression.
+	 */
+	public static void main(String[] args) throws AssertionError {
+		final long seed = args.length > 0 ? Long.parseLong(args[0]) : 1;
+		final int trials = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+		Random random = new Random(seed);
+
+		for (int trial = 0; trial < trials; ++trial) {
+			final String text = randomLine(random);
+
+			try {
+				check(text, random);
+			} catch (AssertionError error) {
+				throw new AssertionError("Seed " + seed + ", trial " + trial + ", line \"" + escape(text) + "\": " + error.getMessage(), error);
+			}
+		}
+
+		System.out.println("ok " + trials);
+	}
+
+	/**
+	 * Puts a random line together, which is sometimes long enough to span a few blocks of 64 characters.
+	 * @param random The source of randomness.
+	 * @return A non-null reference to the line, which has no line breaks.
+	 */
+	private static String randomLine(Random random) {
+		final int fragmentCount = random.nextInt(4) == 0 ? random.nextInt(200) : random.nextInt(16);
+
+		// Some lines use only a few kinds of fragments, so long runs of the same kind are common.
+		final boolean[] allowed = new boolean[fragments.length];
+
+		for (int z = 0; z < allowed.length; ++z) {
+			allowed[z] = random.nextInt(3) != 0;
+		}
+
+		allowed[random.nextInt(3)] = true;
+
+		StringBuilder line = new StringBuilder();
+
+		for (int z = 0; z < fragmentCount; ++z) {
+			int kind;
+
+			do {
+				kind = random.nextInt(fragments.length);
+			} while (!allowed[kind]);
+
+			line.append(fragments[kind][random.nextInt(fragments[kind].length)]);
+		}
+
+		return line.toString();
+	}
+
+	/**
+	 * Checks the words of a line found by all paths against the ones matched by the expression.
+	 * @param text The line.
+	 * @param random The source of randomness for the batches and the offsets.
+	 * @throws AssertionError Thrown when any of the paths finds different words.
+	 */
+	private static void check(String text, Random random) throws AssertionError {
+		final int[] expected = match(text);
+
+		checkTokens("string", expected, tokenize(text, random));
+		checkTokens("pieces", expected, tokenize(piecesOf(text, random), random));
+
+		final boolean ascii = text.chars().allMatch((int character) -> character < 0x80);
+
+		if (ascii) {
+			final int offset = random.nextInt(80);
+
+			byte[] bytes = new byte[offset + text.length() + random.nextInt(80)];
+
+			for (int z = 0; z < bytes.length; ++z) {
+				// Word characters around the slice must not be seen by the scanner.
+				bytes[z] = (byte) 'w';
+			}
+
+			for (int z = 0; z < text.length(); ++z) {
+				bytes[offset + z] = (byte) text.charAt(z);
+			}
+
+			checkTokens("bytes", expected, tokenize(new AsciiSequence(bytes, offset, text.length()), random));
+			checkLine("ASCII line", expected, text, new Line(bytes, offset, text.length()), random);
+		}
+
+		checkLine("string line", expected, text, new Line(text), random);
+	}
+
+	/**
+	 * Finds the words matched by the expression.
+	 * @param text The line.
+	 * @return A non-null reference to the offset and the length of each word, next to each other.
+	 */
+	private static int[] match(String text) {
+		Matcher matcher = wordPattern.matcher(text);
+		ArrayList<Integer> words = new ArrayList<Integer>();
+
+		while (matcher.find()) {
+			words.add(matcher.start());
+			words.add(matcher.end() - matcher.start());
+		}
+
+		return words.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	/**
+	 * Finds the words through the scanner in random batches, each continuing right after the last word of the previous one.
+	 * @param content The line.
+	 * @param random The source of randomness for the batches.
+	 * @return A non-null reference to the offset and the length of each word, next to each other.
+	 */
+	private static int[] tokenize(CharSequence content, Random random) {
+		AsciiWordTokenizer tokenizer = AsciiWordTokenizer.getInstance();
+
+		int[] tokens = new int[content.length() + 2];
+		int count = 0, from = 0;
+
+		while (true) {
+			final int wanted = 1 + random.nextInt(4);
+			final int found = tokenizer.tokenize(content, from, tokens, count * 2, Math.min(wanted, tokens.length / 2 - count));
+
+			count += found;
+
+			if (found < wanted) {
+				break;
+			}
+
+			from = tokens[count * 2 - 2] + tokens[count * 2 - 1];
+		}
+
+		int[] words = new int[count * 2];
+
+		System.arraycopy(tokens, 0, words, 0, words.length);
+
+		return words;
+	}
+
+	/**
+	 * Checks the words parsed by {@link LineParser} and the ones given by the line itself.
+	 * @param path The name of the checked path.
+	 * @param expected The offset and the length of each expected word, next to each other.
+	 * @param text The line.
+	 * @param line The line to be parsed.
+	 * @param random The source of randomness for the batches.
+	 * @throws AssertionError Thrown when any of the words differ.
+	 */
+	private static void checkLine(String path, int[] expected, String text, Line line, Random random) throws AssertionError {
+		check(path + " count", expected.length / 2, LineParser.countWords(line, AsciiWordTokenizer.getInstance()));
+		checkTokens(path + " parsed", expected, toTokens(LineParser.getWords(line)));
+
+		// Parsing in parts, as lines are parsed lazily.
+		WordIndex words = WordIndex.empty();
+
+		for (int size = -1; size != words.size();) {
+			size = words.size();
+			words = LineParser.getWords(line, words, size + 1 + random.nextInt(3));
+		}
+
+		checkTokens(path + " parsed in parts", expected, toTokens(words));
+
+		check(path + " word count", expected.length / 2, line.wordCount());
+
+		for (int z = 0; z < expected.length / 2; ++z) {
+			final String word = text.substring(expected[z * 2], expected[z * 2] + expected[z * 2 + 1]);
+
+			if (!word.equals(line.getWord(z))) {
+				throw new AssertionError(path + " word " + z + " is \"" + escape(line.getWord(z)) + "\" instead of \"" + escape(word) + "\"");
+			}
+		}
+	}
+
+	/**
+	 * Copies the words of an index.
+	 * @param words The index.
+	 * @return A non-null reference to the offset and the length of each word, next to each other.
+	 */
+	private static int[] toTokens(WordIndex words) {
+		int[] tokens = new int[words.size() * 2];
+
+		for (int z = 0; z < words.size(); ++z) {
+			tokens[z * 2] = words.getStartOffset(z);
+			tokens[z * 2 + 1] = words.getLength(z);
+		}
+
+		return tokens;
+	}
+
+	/**
+	 * Splits the line into a random number of pieces, joined into a piece table.
+	 * @param text The line.
+	 * @param random The source of randomness for the cuts.
+	 * @return A non-null reference to the piece table.
+	 */
+	private static PieceTable piecesOf(String text, Random random) {
+		PieceTable.Builder builder = new PieceTable.Builder();
+		PieceTable whole = PieceTable.of(text);
+
+		for (int start = 0; start < text.length();) {
+			final int end = Math.min(text.length(), start + 1 + random.nextInt(12));
+
+			// Each range is its own string, so the pieces are never joined back.
+			builder.append(PieceTable.of(new String(text.substring(start, end))), 0, end - start);
+
+			start = end;
+		}
+
+		PieceTable pieces = builder.build();
+
+		if (!pieces.contentEquals(whole)) {
+			throw new AssertionError("the pieces are \"" + escape(pieces.toString()) + "\"");
+		}
+
+		return pieces;
+	}
+
+	/**
+	 * Checks that the found words are the expected ones.
+	 * @param path The name of the checked path.
+	 * @param expected The offset and the length of each expected word, next to each other.
+	 * @param actual The offset and the length of each found word, next to each other.
+	 * @throws AssertionError Thrown when the words differ.
+	 */
+	private static void checkTokens(String path, int[] expected, int[] actual) throws AssertionError {
+		if (!Arrays.equals(expected, actual)) {
+			throw new AssertionError(path + " found " + Arrays.toString(actual) + " instead of " + Arrays.toString(expected));
+		}
+	}
+
+	/**
+	 * Checks that a count is the expected one.
+	 * @param path The name of the checked path.
+	 * @param expected The expected count.
+	 * @param actual The found count.
+	 * @throws AssertionError Thrown when the counts differ.
+	 */
+	private static void check(String path, int expected, int actual) throws AssertionError {
+		if (expected != actual) {
+			throw new AssertionError(path + " is " + actual + " instead of " + expected);
+		}
+	}
+
+	/**
+	 * Escapes the characters which are not printable ASCII, so a failing line can be copied.
+	 * @param text The text.
+	 * @return A non-null reference to the escaped text.
+	 */
+	private static String escape(String text) {
+		StringBuilder escaped = new StringBuilder();
+
+		for (int z = 0; z < text.length(); ++z) {
+			final char character = text.charAt(z);
+
+			if (character < 0x20 || 0x7E < character || character == '\\' || character == '"') {
+				escaped.append(String.format("\\u%04X", (int) character));
+			} else {
+				escaped.append(character);
+			}
+		}
+
+		return escaped.toString();
+	}
+}